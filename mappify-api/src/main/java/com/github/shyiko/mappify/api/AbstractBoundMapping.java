@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Convenient partial implementation of {@link BoundMapping}, which leaves only three methods to be overridden -
+ * {@link #map(Object, MappingContext)}, {@link #map(Object, Object, MappingContext)} and {@link #getDefaultContext()}.
+ *
+ * @param <S> source type
+ * @param <T> target type
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public abstract class AbstractBoundMapping<S, T> implements BoundMapping<S, T> {
+
+    protected final Class<S> sourceClass;
+    protected final Class<T> targetClass;
+    protected final String mappingName;
+
+    protected AbstractBoundMapping(Class<S> sourceClass, Class<T> targetClass, String mappingName) {
+        this.sourceClass = sourceClass;
+        this.targetClass = targetClass;
+        this.mappingName = mappingName;
+    }
+
+    @Override
+    public Class<S> getSourceClass() {
+        return sourceClass;
+    }
+
+    @Override
+    public Class<T> getTargetClass() {
+        return targetClass;
+    }
+
+    @Override
+    public String getMappingName() {
+        return mappingName;
+    }
+
+    @Override
+    public T map(S source) {
+        return map(source, getDefaultContext());
+    }
+
+    @Override
+    public T map(S source, T target) {
+        return map(source, target, getDefaultContext());
+    }
+
+    @Override
+    public <C extends Collection<T>> C map(Collection<? extends S> sourceCollection, C targetCollection) {
+        return map(sourceCollection, targetCollection, getDefaultContext());
+    }
+
+    @Override
+    public <C extends Collection<T>> C map(Collection<? extends S> sourceCollection, C targetCollection,
+            MappingContext mappingContext) {
+        if (sourceCollection == null) {
+            throw new MappingException("Source collection must never be null");
+        }
+        if (!sourceCollection.isEmpty()) {
+            Iterable<Object> previousSource = null;
+            int previousSourceIndex = -1;
+            if (mappingContext != null) {
+                previousSource = mappingContext.getSource();
+                previousSourceIndex = mappingContext.getSourceIndex();
+                mappingContext.setSource(sourceCollection);
+            }
+            try {
+                int i = 0;
+                for (S source : sourceCollection) {
+                    if (mappingContext != null) {
+                        mappingContext.setSourceIndex(i++);
+                    }
+                    targetCollection.add(map(source, mappingContext));
+                }
+            } finally {
+                if (mappingContext != null) {
+                    mappingContext.setSource(previousSource);
+                    mappingContext.setSourceIndex(previousSourceIndex);
+                }
+            }
+        }
+        return targetCollection;
+    }
+
+    @Override
+    public ArrayList<T> mapToArrayList(Collection<? extends S> sourceCollection) {
+        return mapToArrayList(sourceCollection, getDefaultContext());
+    }
+
+    @Override
+    public ArrayList<T> mapToArrayList(Collection<? extends S> sourceCollection, MappingContext mappingContext) {
+        if (sourceCollection == null) {
+            throw new MappingException("Source collection must never be null");
+        }
+        return map(sourceCollection, new ArrayList<T>(sourceCollection.size()), mappingContext);
+    }
+
+    /**
+     * @return mapping context to use when one wasn't explicitly provided. nullable
+     */
+    protected abstract MappingContext getDefaultContext();
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(sourceClass.getName()).append(" -> ").append(targetClass.getName());
+        if (!"".equals(mappingName)) {
+            sb.append(" ('").append(mappingName).append("')");
+        }
+        return sb.toString();
+    }
+}
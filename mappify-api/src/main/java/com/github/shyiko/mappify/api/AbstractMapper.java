@@ -19,12 +19,12 @@ import java.lang.reflect.Array;
 import java.util.*;
 
 /**
- * Convenient partial implementation of {@link Mapper}, which leaves only two methods to be overridden -
+ * Convenient partial implementation of {@link BindingMapper}, which leaves only two methods to be overridden -
  * {@link #map(Object, Object, String, MappingContext)} and {@link #allowsToMap(Class, Class, String)}.
  *
  * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
  */
-public abstract class AbstractMapper implements Mapper {
+public abstract class AbstractMapper implements BindingMapper {
 
     protected volatile boolean enforceMappingContext = true;
 
@@ -268,6 +268,39 @@ public abstract class AbstractMapper implements Mapper {
         return allowsToMap(sourceClass, targetClass, getDefaultMappingName());
     }
 
+    @Override
+    public <S, T> BoundMapping<S, T> bind(Class<S> sourceClass, Class<T> targetClass) {
+        return bind(sourceClass, targetClass, getDefaultMappingName());
+    }
+
+    @Override
+    public <S, T> BoundMapping<S, T> bind(Class<S> sourceClass, Class<T> targetClass, String mappingName) {
+        assertNotNull(sourceClass, "Source class cannot be null");
+        assertNotNull(targetClass, "Target class cannot be null");
+        assertNotNull(mappingName, "Mapping name cannot be null");
+        if (!allowsToMap(sourceClass, targetClass, mappingName)) {
+            throw new MappingException("Unable to bind undefined mapping " + sourceClass.getName() + " -> " +
+                    targetClass.getName() + " ('" + mappingName + "')");
+        }
+        return new AbstractBoundMapping<S, T>(sourceClass, targetClass, mappingName) {
+
+            @Override
+            public T map(S source, MappingContext mappingContext) {
+                return AbstractMapper.this.map(source, this.targetClass, this.mappingName, mappingContext);
+            }
+
+            @Override
+            public T map(S source, T target, MappingContext mappingContext) {
+                return AbstractMapper.this.map(source, target, this.mappingName, mappingContext);
+            }
+
+            @Override
+            protected MappingContext getDefaultContext() {
+                return AbstractMapper.this.getDefaultContext();
+            }
+        };
+    }
+
     @Override
     public <T> ArrayList<T> mapToArrayList(Collection sourceCollection, Class<T> targetClass) {
         return map(sourceCollection, targetClass, new ArrayList<T>(determineSICForArrayList(sourceCollection)));
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.api;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Asynchronous facade over the {@link Mapper}. Each mapping is performed as a separate task on the supplied
+ * executor. Bulk operations are split into (up to) parallelism chunks (each of which is mapped by a separate task).
+ * Mappings doing blocking lookups benefit from the higher parallelism (especially if combined with
+ * {@link #newVirtualThreadPerTaskExecutor()}).
+ * <p/>
+ * Bulk results are aggregated in source order. Elements are mapped using their own copies of the mapping context
+ * (as {@link MappingContext} is not thread-safe), which means that values put into the context during the
+ * mapping are not visible to the caller (nor to the other elements).
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class AsyncMapper {
+
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = resolveVirtualThreadPerTaskExecutorFactory();
+
+    private final Mapper mapper;
+    private final Executor executor;
+    private final int parallelism;
+
+    /**
+     * Same as {@link #AsyncMapper(Mapper, Executor, int)} with parallelism equal to the number of available
+     * processors.
+     */
+    public AsyncMapper(Mapper mapper, Executor executor) {
+        this(mapper, executor, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param mapper mapper to delegate to
+     * @param executor executor to run mappings on
+     * @param parallelism maximum number of tasks bulk operation is split into
+     */
+    public AsyncMapper(Mapper mapper, Executor executor, int parallelism) {
+        if (mapper == null) {
+            throw new IllegalArgumentException("Mapper cannot be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.mapper = mapper;
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    public Mapper getMapper() {
+        return mapper;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public <T> Future<T> map(Object source, T target) {
+        return map(source, target, null, null, false);
+    }
+
+    public <T> Future<T> map(Object source, T target, String mappingName) {
+        return map(source, target, mappingName, null, false);
+    }
+
+    public <T> Future<T> map(Object source, T target, MappingContext mappingContext) {
+        return map(source, target, null, mappingContext, true);
+    }
+
+    public <T> Future<T> map(Object source, T target, String mappingName, MappingContext mappingContext) {
+        return map(source, target, mappingName, mappingContext, true);
+    }
+
+    public <T> Future<T> map(Object source, Class<T> targetClass) {
+        return map(source, targetClass, null, null, false);
+    }
+
+    public <T> Future<T> map(Object source, Class<T> targetClass, String mappingName) {
+        return map(source, targetClass, mappingName, null, false);
+    }
+
+    public <T> Future<T> map(Object source, Class<T> targetClass, MappingContext mappingContext) {
+        return map(source, targetClass, null, mappingContext, true);
+    }
+
+    public <T> Future<T> map(Object source, Class<T> targetClass, String mappingName,
+                             MappingContext mappingContext) {
+        return map(source, targetClass, mappingName, mappingContext, true);
+    }
+
+    public <T> Future<ArrayList<T>> mapToArrayList(Collection sourceCollection, Class<T> targetClass) {
+        return mapToArrayList(sourceCollection, targetClass, null, null, false);
+    }
+
+    public <T> Future<ArrayList<T>> mapToArrayList(Collection sourceCollection, Class<T> targetClass,
+                                                   String mappingName) {
+        return mapToArrayList(sourceCollection, targetClass, mappingName, null, false);
+    }
+
+    public <T> Future<ArrayList<T>> mapToArrayList(Collection sourceCollection, Class<T> targetClass,
+                                                   MappingContext mappingContext) {
+        return mapToArrayList(sourceCollection, targetClass, null, mappingContext, true);
+    }
+
+    public <T> Future<ArrayList<T>> mapToArrayList(Collection sourceCollection, Class<T> targetClass,
+                                                   String mappingName, MappingContext mappingContext) {
+        return mapToArrayList(sourceCollection, targetClass, mappingName, mappingContext, true);
+    }
+
+    public <S, T> Future<ArrayList<T>> mapToArrayList(S[] sourceArray, Class<T> targetClass) {
+        return mapToArrayList(Arrays.asList(sourceArray), targetClass, null, null, false);
+    }
+
+    public <S, T> Future<ArrayList<T>> mapToArrayList(S[] sourceArray, Class<T> targetClass, String mappingName) {
+        return mapToArrayList(Arrays.asList(sourceArray), targetClass, mappingName, null, false);
+    }
+
+    public <S, T> Future<ArrayList<T>> mapToArrayList(S[] sourceArray, Class<T> targetClass,
+                                                      MappingContext mappingContext) {
+        return mapToArrayList(Arrays.asList(sourceArray), targetClass, null, mappingContext, true);
+    }
+
+    public <S, T> Future<ArrayList<T>> mapToArrayList(S[] sourceArray, Class<T> targetClass, String mappingName,
+                                                      MappingContext mappingContext) {
+        return mapToArrayList(Arrays.asList(sourceArray), targetClass, mappingName, mappingContext, true);
+    }
+
+    /**
+     * @return true if JVM supports virtual threads (Java 21+), false otherwise
+     */
+    public static boolean isVirtualThreadPerTaskExecutorSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * @return executor which starts a new virtual thread for each task
+     * (same as Executors.newVirtualThreadPerTaskExecutor())
+     * @throws UnsupportedOperationException if JVM does not support virtual threads
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by this JVM");
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        } catch (IllegalAccessException e) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by this JVM", e);
+        } catch (InvocationTargetException e) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by this JVM", e.getCause());
+        }
+    }
+
+    protected <T> Future<T> map(final Object source, final Object target, final String mappingName,
+                                final MappingContext mappingContext, final boolean contextProvided) {
+        return submit(new Callable<T>() {
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public T call() throws Exception {
+                if (target instanceof Class) {
+                    Class<T> targetClass = (Class<T>) target;
+                    if (contextProvided) {
+                        return mappingName == null ? mapper.map(source, targetClass, mappingContext) :
+                                mapper.map(source, targetClass, mappingName, mappingContext);
+                    }
+                    return mappingName == null ? mapper.map(source, targetClass) :
+                            mapper.map(source, targetClass, mappingName);
+                }
+                T targetInstance = (T) target;
+                if (contextProvided) {
+                    return mappingName == null ? mapper.map(source, targetInstance, mappingContext) :
+                            mapper.map(source, targetInstance, mappingName, mappingContext);
+                }
+                return mappingName == null ? mapper.map(source, targetInstance) :
+                        mapper.map(source, targetInstance, mappingName);
+            }
+        });
+    }
+
+    protected <T> Future<ArrayList<T>> mapToArrayList(final Collection sourceCollection, final Class<T> targetClass,
+                                                      final String mappingName, MappingContext mappingContext,
+                                                      boolean contextProvided) {
+        final MappingContext context = contextProvided ? mappingContext : getDefaultContext();
+        final List<?> sourceList = sourceCollection instanceof List && sourceCollection instanceof RandomAccess ?
+                (List<?>) sourceCollection : new ArrayList<Object>(sourceCollection);
+        int size = sourceList.size();
+        int numberOfChunks = Math.min(parallelism, size);
+        List<Future<List<T>>> futures = new ArrayList<Future<List<T>>>(numberOfChunks);
+        if (numberOfChunks == 0) {
+            return new OrderedFutureList<T>(futures);
+        }
+        int chunkSize = (size + numberOfChunks - 1) / numberOfChunks;
+        try {
+            for (int from = 0; from < size; from += chunkSize) {
+                final int fromIndex = from, toIndex = Math.min(from + chunkSize, size);
+                futures.add(this.<List<T>>submit(new Callable<List<T>>() {
+
+                    @Override
+                    public List<T> call() throws Exception {
+                        List<T> result = new ArrayList<T>(toIndex - fromIndex);
+                        for (int i = fromIndex; i < toIndex; i++) {
+                            if (Thread.currentThread().isInterrupted()) {
+                                throw new InterruptedException(); // cancelled
+                            }
+                            MappingContext elementContext = null;
+                            if (context != null) {
+                                elementContext = context.fork();
+                                elementContext.setSource(sourceCollection);
+                                elementContext.setSourceIndex(i);
+                            }
+                            Object source = sourceList.get(i);
+                            result.add(mappingName == null ? mapper.map(source, targetClass, elementContext) :
+                                    mapper.map(source, targetClass, mappingName, elementContext));
+                        }
+                        return result;
+                    }
+                }));
+            }
+        } catch (RuntimeException e) {
+            cancel(futures, 0);
+            throw e;
+        }
+        return new OrderedFutureList<T>(futures);
+    }
+
+    protected MappingContext getDefaultContext() {
+        return mapper instanceof AbstractMapper ? ((AbstractMapper) mapper).getDefaultContext() :
+                new MappingContext();
+    }
+
+    private <T> Future<T> submit(Callable<T> callable) {
+        FutureTask<T> task = new FutureTask<T>(callable);
+        executor.execute(task);
+        return task;
+    }
+
+    private static void cancel(List<? extends Future> futures, int fromIndex) {
+        for (int i = fromIndex, size = futures.size(); i < size; i++) {
+            futures.get(i).cancel(true);
+        }
+    }
+
+    private static Method resolveVirtualThreadPerTaskExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Future of the list which is assembled (in order) from the results of the individual (chunk) futures.
+     * Failure of any of the chunks cancels all the ones that follow it. So does the timeout (or interruption) of the
+     * waiting thread (in which case all the pending chunks are cancelled).
+     */
+    private static final class OrderedFutureList<T> implements Future<ArrayList<T>> {
+
+        private final List<Future<List<T>>> futures;
+
+        private OrderedFutureList(List<Future<List<T>>> futures) {
+            this.futures = futures;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean result = false;
+            for (Future<List<T>> future : futures) {
+                result |= future.cancel(mayInterruptIfRunning);
+            }
+            return result;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            for (Future<List<T>> future : futures) {
+                if (future.isCancelled()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            for (Future<List<T>> future : futures) {
+                if (!future.isDone()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public ArrayList<T> get() throws InterruptedException, ExecutionException {
+            ArrayList<T> result = new ArrayList<T>();
+            for (int i = 0, size = futures.size(); i < size; i++) {
+                try {
+                    result.addAll(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    AsyncMapper.cancel(futures, i + 1);
+                    throw e;
+                } catch (InterruptedException e) {
+                    AsyncMapper.cancel(futures, i);
+                    throw e;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public ArrayList<T> get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            ArrayList<T> result = new ArrayList<T>();
+            for (int i = 0, size = futures.size(); i < size; i++) {
+                try {
+                    result.addAll(futures.get(i).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+                } catch (ExecutionException e) {
+                    AsyncMapper.cancel(futures, i + 1);
+                    throw e;
+                } catch (TimeoutException e) {
+                    AsyncMapper.cancel(futures, i);
+                    throw e;
+                } catch (InterruptedException e) {
+                    AsyncMapper.cancel(futures, i);
+                    throw e;
+                }
+            }
+            return result;
+        }
+    }
+}
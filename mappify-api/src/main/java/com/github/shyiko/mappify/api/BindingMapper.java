@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.api;
+
+/**
+ * {@link Mapper} capable of resolving mapping once, so that it could be (re)used without repeating lookup on each
+ * call. Implementations are required to be thread-safe.
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public interface BindingMapper extends Mapper {
+
+    /**
+     * Resolve mapping once, so that it could be (re)used without repeating lookup on each call.
+     * @param sourceClass source class
+     * @param targetClass target class
+     * @param <S> source type
+     * @param <T> target type
+     * @return bound mapping
+     * @throws MappingException if there is no such mapping
+     */
+    <S, T> BoundMapping<S, T> bind(Class<S> sourceClass, Class<T> targetClass);
+
+    /**
+     * Resolve mapping once, so that it could be (re)used without repeating lookup on each call.
+     * @param sourceClass source class
+     * @param targetClass target class
+     * @param mappingName mapping name
+     * @param <S> source type
+     * @param <T> target type
+     * @return bound mapping
+     * @throws MappingException if there is no such mapping
+     */
+    <S, T> BoundMapping<S, T> bind(Class<S> sourceClass, Class<T> targetClass, String mappingName);
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Mapping resolved once by {@link BindingMapper#bind(Class, Class, String)}, meant to be reused (e.g. kept in a static
+ * field) by the code which maps fixed pair of types. Implementations are required to be thread-safe.
+ * <p/>
+ * On Java 8+, method reference {@code boundMapping::map} can be used wherever {@code Function<S, T>} is expected.
+ *
+ * @param <S> source type
+ * @param <T> target type
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public interface BoundMapping<S, T> {
+
+    /**
+     * @return source class this mapping was bound to
+     */
+    Class<S> getSourceClass();
+
+    /**
+     * @return target class this mapping was bound to
+     */
+    Class<T> getTargetClass();
+
+    /**
+     * @return mapping name this mapping was bound to
+     */
+    String getMappingName();
+
+    /**
+     * Map the source object into the object of target class.
+     * @param source source object. nullable
+     * @return target object. nullable
+     * @throws MappingException in case of failure during the mapping process
+     */
+    T map(S source);
+
+    /**
+     * Map the source object into the object of target class.
+     * @param source source object. nullable
+     * @param mappingContext mapping context
+     * @return target object. nullable
+     * @throws MappingException in case of failure during the mapping process
+     */
+    T map(S source, MappingContext mappingContext);
+
+    /**
+     * Map the source object onto the target one.
+     * @param source source object
+     * @param target target object
+     * @return target object
+     * @throws MappingException in case of failure during the mapping process
+     */
+    T map(S source, T target);
+
+    /**
+     * Map the source object onto the target one.
+     * @param source source object
+     * @param target target object
+     * @param mappingContext mapping context
+     * @return target object
+     * @throws MappingException in case of failure during the mapping process
+     */
+    T map(S source, T target, MappingContext mappingContext);
+
+    /**
+     * Map each element of source collection into corresponding object of target class.
+     * Result is added to the target collection.
+     * @param sourceCollection source collection
+     * @param targetCollection target collection
+     * @param <C> collection type
+     * @return target collection
+     * @throws MappingException in case of failure during the mapping process
+     */
+    <C extends Collection<T>> C map(Collection<? extends S> sourceCollection, C targetCollection);
+
+    /**
+     * Map each element of source collection into corresponding object of target class.
+     * Result is added to the target collection.
+     * @param sourceCollection source collection
+     * @param targetCollection target collection
+     * @param mappingContext mapping context
+     * @param <C> collection type
+     * @return target collection
+     * @throws MappingException in case of failure during the mapping process
+     */
+    <C extends Collection<T>> C map(Collection<? extends S> sourceCollection, C targetCollection,
+            MappingContext mappingContext);
+
+    /**
+     * @see #map(java.util.Collection, java.util.Collection)
+     */
+    ArrayList<T> mapToArrayList(Collection<? extends S> sourceCollection);
+
+    /**
+     * @see #map(java.util.Collection, java.util.Collection, MappingContext)
+     */
+    ArrayList<T> mapToArrayList(Collection<? extends S> sourceCollection, MappingContext mappingContext);
+}
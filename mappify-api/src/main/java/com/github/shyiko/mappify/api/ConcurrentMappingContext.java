@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.api;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Thread-safe {@link MappingContext}. Data is kept in the immutable map which is replaced (copy-on-write) on each
+ * modification, which makes reads lock-free and {@link #fork()} O(1) (fork shares the map until first write).
+ * <p/>
+ * Note that source/sourceIndex are not shared between threads. Instead, each concurrent task is expected to work
+ * with its own fork, e.g.
+ * <pre>
+ * MappingContext fork = context.fork(); // on the submitting thread
+ * ... // mapping on the worker thread using fork
+ * context.merge(fork); // once task is complete (optional)
+ * </pre>
+ * {@link #keySet()} and {@link #getContext()} return read-only snapshots.
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class ConcurrentMappingContext extends MappingContext {
+
+    private final AtomicReference<Map<String, Object>> data;
+
+    public ConcurrentMappingContext() {
+        this((Map<String, Object>) null);
+    }
+
+    /**
+     * @param context mapping context to copy mappings from
+     */
+    public ConcurrentMappingContext(MappingContext context) {
+        this(context.isEmpty() ? null : context.getContext());
+    }
+
+    /**
+     * @param data data
+     */
+    public ConcurrentMappingContext(Map<String, Object> data) {
+        this.data = new AtomicReference<Map<String, Object>>(data == null || data.isEmpty() ?
+                Collections.<String, Object>emptyMap() : new HashMap<String, Object>(data));
+    }
+
+    /**
+     * @param key key
+     * @param value any object that needs to be available during the mapping process
+     */
+    public ConcurrentMappingContext(String key, Object value) {
+        this(Collections.singletonMap(key, value));
+    }
+
+    private ConcurrentMappingContext(ConcurrentMappingContext parent) {
+        this.data = new AtomicReference<Map<String, Object>>(parent.data.get());
+        setAttachment(parent.getAttachment());
+        trackWrites();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T get(String key) {
+        return (T) data.get().get(key);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return data.get().containsKey(key);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return data.get().isEmpty();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return getContext().keySet();
+    }
+
+    @Override
+    public MappingContext put(String key, Object value) {
+        update(Collections.singletonMap(key, value));
+        return this;
+    }
+
+    @Override
+    public MappingContext putAll(Map<String, Object> map) {
+        if (!map.isEmpty()) {
+            update(map);
+        }
+        return this;
+    }
+
+    @Override
+    public MappingContext remove(String key) {
+        update(Collections.singletonMap(key, REMOVED));
+        return this;
+    }
+
+    @Override
+    public MappingContext clear() {
+        Map<String, Object> current = data.get();
+        if (!current.isEmpty()) {
+            Map<String, Object> removals = new HashMap<String, Object>();
+            for (String key : current.keySet()) {
+                removals.put(key, REMOVED);
+            }
+            update(removals);
+        }
+        return this;
+    }
+
+    /**
+     * @return fork which shares data with this context until first write (to either of them)
+     */
+    @Override
+    public MappingContext fork() {
+        return new ConcurrentMappingContext(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Changes made to the fork are applied atomically.
+     */
+    @Override
+    public MappingContext merge(MappingContext fork) {
+        Map<String, Object> changes = fork.getWrites();
+        if (changes == null) {
+            return super.merge(fork);
+        }
+        if (!changes.isEmpty()) {
+            update(changes);
+        }
+        return this;
+    }
+
+    @Override
+    protected Map<String, Object> getContext() {
+        return Collections.unmodifiableMap(data.get());
+    }
+
+    @Override
+    public String toString() {
+        return data.get().toString();
+    }
+
+    private void update(Map<String, Object> changes) {
+        Map<String, Object> current, updated;
+        do {
+            current = data.get();
+            updated = new HashMap<String, Object>(current);
+            for (Map.Entry<String, Object> entry : changes.entrySet()) {
+                if (entry.getValue() == REMOVED) {
+                    updated.remove(entry.getKey());
+                } else {
+                    updated.put(entry.getKey(), entry.getValue());
+                }
+            }
+        } while (!data.compareAndSet(current, updated));
+        recordWrites(changes);
+    }
+}
@@ -15,12 +15,15 @@
  */
 package com.github.shyiko.mappify.api;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * Mapping context which is available to the mappers during the mapping process.
+ * Backing map is allocated on the first access (see {@link #getContext()}), so contexts which are never used are
+ * (almost) free.
  * Implementation is not thread-safe. Thus, same instance of this class should not be shared between multiple
  * threads.
  *
@@ -28,9 +31,22 @@ import java.util.Set;
  */
 public class MappingContext {
 
+    /**
+     * value recorded (see {@link #recordWrites(Map)}) for the removed keys
+     */
+    protected static final Object REMOVED = new Object();
+
+    /**
+     * null until first access. use {@link #getContext()} to get initialized instance
+     */
     protected Map<String, Object> context;
     protected Iterable source;
     protected int sourceIndex = -1;
+    private volatile Object attachment;
+    /**
+     * keys written to the fork (REMOVED for the removed ones), null unless this context is a fork
+     */
+    private Map<String, Object> writes;
 
     public MappingContext() {
         this((Map<String, Object>) null);
@@ -40,14 +56,16 @@ public class MappingContext {
      * @param context mapping context to copy mappings from
      */
     public MappingContext(MappingContext context) {
-        this(context.context);
+        this(context.isEmpty() ? null : context.getContext());
     }
 
     /**
      * @param data data
      */
     public MappingContext(Map<String, Object> data) {
-        context = initContext(data);
+        if (data != null && !data.isEmpty()) {
+            context = initContext(data);
+        }
     }
 
     /**
@@ -61,8 +79,7 @@ public class MappingContext {
      * @param value any object that needs to be available during the mapping process
      */
     public MappingContext(String key, Object value) {
-        this((Map<String, Object>) null);
-        context.put(key, value);
+        getContext().put(key, value);
     }
 
     /**
@@ -72,7 +89,7 @@ public class MappingContext {
      */
     @SuppressWarnings("unchecked")
     public <T> T get(String key) {
-        return (T) context.get(key);
+        return (T) getContext().get(key);
     }
 
     /**
@@ -102,14 +119,14 @@ public class MappingContext {
      * @return true if this context contains a mapping for the given key
      */
     public boolean containsKey(String key) {
-        return context.containsKey(key);
+        return getContext().containsKey(key);
     }
 
     /**
      * @return true if there are no mappings defined in this context, false otherwise
      */
     public boolean isEmpty() {
-        return context.isEmpty();
+        return getContext().isEmpty();
     }
 
     /**
@@ -125,7 +142,7 @@ public class MappingContext {
      * @return a {@link Set} view of the keys defined in this context
      */
     public Set<String> keySet() {
-        return context.keySet();
+        return getContext().keySet();
     }
 
     /**
@@ -135,7 +152,10 @@ public class MappingContext {
      * @return this reference
      */
     public MappingContext put(String key, Object value) {
-        context.put(key, value);
+        getContext().put(key, value);
+        if (writes != null) {
+            recordWrites(Collections.singletonMap(key, value));
+        }
         return this;
     }
 
@@ -145,7 +165,10 @@ public class MappingContext {
      * @return this reference
      */
     public MappingContext putAll(Map<String, Object> map) {
-        context.putAll(map);
+        getContext().putAll(map);
+        if (writes != null) {
+            recordWrites(map);
+        }
         return this;
     }
 
@@ -155,7 +178,10 @@ public class MappingContext {
      * @return this reference
      */
     public MappingContext remove(String key) {
-        context.remove(key);
+        getContext().remove(key);
+        if (writes != null) {
+            recordWrites(Collections.singletonMap(key, REMOVED));
+        }
         return this;
     }
 
@@ -164,6 +190,14 @@ public class MappingContext {
      * @return this reference
      */
     public MappingContext clear() {
+        Map<String, Object> context = getContext();
+        if (writes != null) {
+            Map<String, Object> removals = new HashMap<String, Object>();
+            for (String key : context.keySet()) {
+                removals.put(key, REMOVED);
+            }
+            recordWrites(removals);
+        }
         context.clear();
         return this;
     }
@@ -192,6 +226,107 @@ public class MappingContext {
         this.source = source;
     }
 
+    /**
+     * @return object attached to this context by the mapper (e.g. state shared by all the mappings performed within
+     * the context), null if there is none. Unlike data, attachment is not visible through the {@link #keySet()},
+     * it's neither copied by the {@link #MappingContext(MappingContext)} nor {@link #merge(MappingContext)}'d
+     * (instead, it's shared with the {@link #fork()}s)
+     */
+    public Object getAttachment() {
+        return attachment;
+    }
+
+    /**
+     * @param attachment attachment. nullable
+     */
+    public void setAttachment(Object attachment) {
+        this.attachment = attachment;
+    }
+
+    /**
+     * Create context to be used by the nested (possibly concurrent) mapping process. Fork starts with the data of
+     * this context, but has its own source/sourceIndex and its writes are not visible to this context (unless
+     * {@link #merge(MappingContext)}'d back). Attachment (if any) is shared.
+     * @return forked context
+     */
+    public MappingContext fork() {
+        MappingContext fork = new MappingContext(this);
+        fork.setAttachment(attachment);
+        fork.trackWrites();
+        return fork;
+    }
+
+    /**
+     * Apply changes made to the fork (created with {@link #fork()}) to this context, i.e. only the entries
+     * put/removed within the fork (so that updates of this context made in the meantime are not overridden with the
+     * stale values). If given context is not a fork, all of its entries are copied instead.
+     * Should be called only after fork is no longer in use.
+     * @param fork forked context
+     * @return this reference
+     */
+    public MappingContext merge(MappingContext fork) {
+        Map<String, Object> changes = fork.getWrites();
+        if (changes == null) {
+            if (!fork.isEmpty()) {
+                putAll(fork.getContext());
+            }
+            return this;
+        }
+        for (Map.Entry<String, Object> entry : changes.entrySet()) {
+            if (entry.getValue() == REMOVED) {
+                remove(entry.getKey());
+            } else {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Start recording writes (to be applied by the {@link #merge(MappingContext)}). Called on the newly created
+     * {@link #fork()}s.
+     */
+    protected void trackWrites() {
+        writes = new HashMap<String, Object>();
+    }
+
+    /**
+     * @param changes key -&gt; value ({@link #REMOVED} for the removed keys)
+     */
+    protected void recordWrites(Map<String, Object> changes) {
+        Map<String, Object> writes = this.writes;
+        if (writes != null) {
+            synchronized (writes) {
+                writes.putAll(changes);
+            }
+        }
+    }
+
+    /**
+     * @return copy of the writes recorded since {@link #trackWrites()}, null if writes are not tracked (i.e. this
+     * context is not a fork)
+     */
+    protected Map<String, Object> getWrites() {
+        Map<String, Object> writes = this.writes;
+        if (writes == null) {
+            return null;
+        }
+        synchronized (writes) {
+            return new HashMap<String, Object>(writes);
+        }
+    }
+
+    /**
+     * @return backing map (allocated with {@link #initContext(Map)} on the first call). Overriding method is
+     * expected to override all the other data accessors as well
+     */
+    protected Map<String, Object> getContext() {
+        if (context == null) {
+            context = initContext(null);
+        }
+        return context;
+    }
+
     protected Map<String, Object> initContext(Map<String, Object> data) {
         if (data == null) {
             return new HashMap<String, Object>();
@@ -201,6 +336,6 @@ public class MappingContext {
 
     @Override
     public String toString() {
-        return context.toString();
+        return getContext().toString();
     }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.benchmarks;
+
+import org.dozer.DozerBeanMapper;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hand-written mapping code and other mapping libraries, to put {@link HandcraftMapperBenchmark} numbers into
+ * perspective.
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaselineBenchmark {
+
+    @Param({"false", "true"})
+    public boolean proxied;
+
+    @Param({"100"})
+    public int size;
+
+    private ModelMapper modelMapper;
+    private DozerBeanMapper dozerMapper;
+    private Order order;
+    private List<Order> orders;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        dozerMapper = new DozerBeanMapper();
+        orders = Orders.create(size, proxied);
+        order = orders.get(0);
+    }
+
+    @Benchmark
+    public OrderDTO handwrittenObject() {
+        return OrderMappingProvider.map(order, new OrderDTO());
+    }
+
+    @Benchmark
+    public List<OrderDTO> handwrittenCollection() {
+        List<OrderDTO> result = new ArrayList<OrderDTO>(orders.size());
+        for (Order order : orders) {
+            result.add(OrderMappingProvider.map(order, new OrderDTO()));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public OrderDTO modelMapperObject() {
+        return modelMapper.map(order, OrderDTO.class);
+    }
+
+    @Benchmark
+    public List<OrderDTO> modelMapperCollection() {
+        List<OrderDTO> result = new ArrayList<OrderDTO>(orders.size());
+        for (Order order : orders) {
+            result.add(modelMapper.map(order, OrderDTO.class));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public OrderDTO dozerObject() {
+        return dozerMapper.map(order, OrderDTO.class);
+    }
+
+    @Benchmark
+    public List<OrderDTO> dozerCollection() {
+        List<OrderDTO> result = new ArrayList<OrderDTO>(orders.size());
+        for (Order order : orders) {
+            result.add(dozerMapper.map(order, OrderDTO.class));
+        }
+        return result;
+    }
+}
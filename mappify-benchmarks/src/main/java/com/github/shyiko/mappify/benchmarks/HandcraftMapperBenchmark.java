@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.benchmarks;
+
+import com.github.shyiko.mappify.api.MappingContext;
+import com.github.shyiko.mappify.handcraft.HandcraftMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Covers each family of {@link com.github.shyiko.mappify.api.Mapper} entry points.
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandcraftMapperBenchmark {
+
+    public enum ContextMode {
+        /**
+         * Overloads without MappingContext parameter.
+         */
+        NONE,
+        /**
+         * Empty MappingContext created per operation.
+         */
+        CONTEXT,
+        /**
+         * MappingContext with {@link HandcraftMapper#HINT_REUSE_MAPPING} created per operation.
+         */
+        REUSE_MAPPING
+    }
+
+    @Param({"NONE", "CONTEXT", "REUSE_MAPPING"})
+    public ContextMode contextMode;
+
+    @Param({"false", "true"})
+    public boolean proxied;
+
+    @Param({"100"})
+    public int size;
+
+    private HandcraftMapper mapper;
+    private Order order;
+    private List<Order> orders;
+    private Order[] orderArray;
+
+    @Setup
+    public void setUp() {
+        mapper = new HandcraftMapper();
+        mapper.register(new OrderMappingProvider());
+        orders = Orders.create(size, proxied);
+        orderArray = orders.toArray(new Order[orders.size()]);
+        order = orders.get(0);
+    }
+
+    private MappingContext newContext() {
+        switch (contextMode) {
+            case CONTEXT:
+                return new MappingContext();
+            case REUSE_MAPPING:
+                return new MappingContext(HandcraftMapper.HINT_REUSE_MAPPING, Boolean.TRUE);
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    @Benchmark
+    public OrderDTO mapObject() {
+        return contextMode == ContextMode.NONE ? mapper.map(order, OrderDTO.class) :
+                mapper.map(order, OrderDTO.class, newContext());
+    }
+
+    @Benchmark
+    public OrderDTO mapOverlay() {
+        return contextMode == ContextMode.NONE ? mapper.map(order, new OrderDTO()) :
+                mapper.map(order, new OrderDTO(), newContext());
+    }
+
+    @Benchmark
+    public List<OrderDTO> mapCollectionToCollection() {
+        List<OrderDTO> result = new ArrayList<OrderDTO>(orders.size());
+        return contextMode == ContextMode.NONE ? mapper.map(orders, OrderDTO.class, result) :
+                mapper.map(orders, OrderDTO.class, result, newContext());
+    }
+
+    @Benchmark
+    public OrderDTO[] mapCollectionToArray() {
+        return contextMode == ContextMode.NONE ? mapper.map(orders, OrderDTO.class) :
+                mapper.map(orders, OrderDTO.class, newContext());
+    }
+
+    @Benchmark
+    public OrderDTO[] mapArrayToArray() {
+        return contextMode == ContextMode.NONE ? mapper.map(orderArray, OrderDTO.class) :
+                mapper.map(orderArray, OrderDTO.class, newContext());
+    }
+
+    @Benchmark
+    public Map<Order, OrderDTO> mapCollectionToMap() {
+        Map<Order, OrderDTO> result = new HashMap<Order, OrderDTO>(orders.size() * 2);
+        return contextMode == ContextMode.NONE ? mapper.map(orders, OrderDTO.class, result) :
+                mapper.map(orders, OrderDTO.class, result, newContext());
+    }
+
+    @Benchmark
+    public ArrayList<OrderDTO> mapToArrayList() {
+        return contextMode == ContextMode.NONE ? mapper.mapToArrayList(orders, OrderDTO.class) :
+                mapper.mapToArrayList(orders, OrderDTO.class, newContext());
+    }
+
+    @Benchmark
+    public HashSet<OrderDTO> mapToHashSet() {
+        return contextMode == ContextMode.NONE ? mapper.mapToHashSet(orders, OrderDTO.class) :
+                mapper.mapToHashSet(orders, OrderDTO.class, newContext());
+    }
+
+    @Benchmark
+    public LinkedHashMap<Order, OrderDTO> mapToLinkedHashMap() {
+        return contextMode == ContextMode.NONE ? mapper.mapToLinkedHashMap(orders, OrderDTO.class) :
+                mapper.mapToLinkedHashMap(orders, OrderDTO.class, newContext());
+    }
+}
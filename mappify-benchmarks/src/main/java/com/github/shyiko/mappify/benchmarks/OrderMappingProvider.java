@@ -0,0 +1,39 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.benchmarks;
+
+import com.github.shyiko.mappify.handcraft.Mapping;
+
+/**
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class OrderMappingProvider {
+
+    @Mapping
+    public void mapToDTO(Order order, OrderDTO orderDTO) {
+        map(order, orderDTO);
+    }
+
+    /**
+     * Hand-written mapping used as a baseline.
+     */
+    public static OrderDTO map(Order order, OrderDTO orderDTO) {
+        orderDTO.setId(order.getId());
+        orderDTO.setCustomer(order.getCustomer());
+        orderDTO.setAmount(order.getAmount());
+        return orderDTO;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.benchmarks;
+
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.pojo.javassist.JavassistProxyFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Source data shared by the benchmarks.
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public final class Orders {
+
+    private Orders() {
+    }
+
+    /**
+     * @param size number of orders to create
+     * @param proxied true if each order should be wrapped into an (initialized) Hibernate proxy
+     * @return list of orders
+     */
+    public static List<Order> create(int size, boolean proxied) {
+        JavassistProxyFactory proxyFactory = proxied ? createProxyFactory() : null;
+        List<Order> result = new ArrayList<Order>(size);
+        for (long i = 0; i < size; i++) {
+            Order order = new Order(i, "Customer #" + i, BigDecimal.valueOf(i * 100, 2));
+            result.add(proxied ? proxy(proxyFactory, order) : order);
+        }
+        return result;
+    }
+
+    private static JavassistProxyFactory createProxyFactory() {
+        JavassistProxyFactory proxyFactory = new JavassistProxyFactory();
+        try {
+            proxyFactory.postInstantiate(Order.class.getName(), Order.class,
+                    Collections.<Class>singleton(HibernateProxy.class),
+                    Order.class.getMethod("getId"), Order.class.getMethod("setId", Long.class), null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+        return proxyFactory;
+    }
+
+    private static Order proxy(JavassistProxyFactory proxyFactory, Order order) {
+        HibernateProxy proxy = proxyFactory.getProxy(order.getId(), null);
+        proxy.getHibernateLazyInitializer().setImplementation(order);
+        return (Order) proxy;
+    }
+}
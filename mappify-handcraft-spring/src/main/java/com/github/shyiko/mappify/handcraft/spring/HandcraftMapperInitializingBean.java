@@ -16,37 +16,133 @@
 package com.github.shyiko.mappify.handcraft.spring;
 
 import com.github.shyiko.mappify.handcraft.HandcraftMapper;
+import com.github.shyiko.mappify.handcraft.HandcraftMapperManagement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 
+import javax.management.ObjectName;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * {@link BeanPostProcessor} which discovers mappings by scanning Spring context for {@link MappingProvider}
  * annotated beans.
+ * <p/>
+ * If there is a {@link #INDEX_LOCATION} on the classpath (generated by the mappify-processor), providers are
+ * looked up in the index first (which means that indexed beans are not inspected with the reflection). Beans whose
+ * classes are not listed in the index (e.g. the ones compiled without mappify-processor or proxied ones) are checked
+ * for {@link MappingProvider} annotation.
+ * <p/>
+ * Once context is refreshed, mapper is frozen (unless {@link #setFreezeOnRefresh(boolean)} is set to false).
+ * <p/>
+ * If {@link #setMBeanName(String)} is set, mapper is also exposed over JMX (see {@link HandcraftMapperManagement}).
+ * <p/>
+ * Once context is closed, mapper is {@link HandcraftMapper#shutdown()}.
  *
  * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
  */
-public class HandcraftMapperInitializingBean implements BeanPostProcessor {
+public class HandcraftMapperInitializingBean implements BeanPostProcessor, BeanClassLoaderAware,
+        ApplicationListener<ContextRefreshedEvent>, InitializingBean, DisposableBean {
+
+    public static final String INDEX_LOCATION = "META-INF/mappify.index";
 
     private static final Logger logger = LoggerFactory.getLogger(HandcraftMapperInitializingBean.class);
 
     private HandcraftMapper mapper;
+    private boolean ignoreIndex;
+    private boolean batchRegistration;
+    private boolean freezeOnRefresh = true;
+    private String mBeanName;
+    private ObjectName mBeanObjectName;
+    private ClassLoader classLoader = HandcraftMapperInitializingBean.class.getClassLoader();
+    /**
+     * binary names of the indexed providers, null until loaded (empty if there is no index)
+     */
+    private Set<String> indexedProviders;
+    private final List<Object> pendingProviders = new ArrayList<Object>();
 
     public void setMapper(HandcraftMapper mapper) {
         this.mapper = mapper;
     }
 
+    /**
+     * @param ignoreIndex true if {@link #INDEX_LOCATION} should not be used (each bean is checked for
+     * {@link MappingProvider} annotation), false otherwise (default)
+     */
+    public void setIgnoreIndex(boolean ignoreIndex) {
+        this.ignoreIndex = ignoreIndex;
+    }
+
+    /**
+     * @param batchRegistration true if providers should be registered all at once (when context is refreshed),
+     * false if each provider is to be registered right after its initialization (default). Note that enabling
+     * batch registration means mapper cannot be used by the other beans during their initialization
+     */
+    public void setBatchRegistration(boolean batchRegistration) {
+        this.batchRegistration = batchRegistration;
+    }
+
+    /**
+     * @param freezeOnRefresh true if mapper should be frozen (see {@link HandcraftMapper#freeze()}) once context is
+     * refreshed (default), false otherwise
+     */
+    public void setFreezeOnRefresh(boolean freezeOnRefresh) {
+        this.freezeOnRefresh = freezeOnRefresh;
+    }
+
+    /**
+     * @param mBeanName name to register mapper's MBean under (see
+     * {@link HandcraftMapperManagement#register(HandcraftMapper, String)}), null (default) if MBean is not needed
+     */
+    public void setMBeanName(String mBeanName) {
+        this.mBeanName = mBeanName;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (mBeanName != null) {
+            mBeanObjectName = HandcraftMapperManagement.register(mapper, mBeanName);
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (mBeanObjectName != null) {
+            HandcraftMapperManagement.unregister(mBeanObjectName);
+            mBeanObjectName = null;
+        }
+        mapper.shutdown();
+    }
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
     @Override
     public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
-        if (bean.getClass().isAnnotationPresent(MappingProvider.class)) {
-            Collection<HandcraftMapper.MappingKey> mappings = mapper.register(bean);
-            if (logger.isDebugEnabled()) {
-                for (HandcraftMapper.MappingKey mapping : mappings) {
-                    logger.debug("Discovered mapping " + mapping);
+        if (isMappingProvider(bean)) {
+            if (batchRegistration) {
+                synchronized (pendingProviders) {
+                    pendingProviders.add(bean);
                 }
+            } else {
+                logDiscoveredMappings(mapper.register(bean));
             }
         }
         return bean;
@@ -56,4 +152,69 @@ public class HandcraftMapperInitializingBean implements BeanPostProcessor {
     public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
         return bean;
     }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        List<Object> providers;
+        synchronized (pendingProviders) {
+            providers = new ArrayList<Object>(pendingProviders);
+            pendingProviders.clear();
+        }
+        if (!providers.isEmpty()) {
+            logDiscoveredMappings(mapper.registerAll(providers));
+        }
+        if (freezeOnRefresh) {
+            mapper.freeze();
+        }
+    }
+
+    protected boolean isMappingProvider(Object bean) {
+        if (!ignoreIndex && getIndexedProviders().contains(bean.getClass().getName())) {
+            return true;
+        }
+        return bean.getClass().isAnnotationPresent(MappingProvider.class);
+    }
+
+    private synchronized Set<String> getIndexedProviders() {
+        if (indexedProviders == null) {
+            indexedProviders = loadIndex();
+        }
+        return indexedProviders;
+    }
+
+    private Set<String> loadIndex() {
+        Set<String> result = new HashSet<String>();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(INDEX_LOCATION);
+            while (resources.hasMoreElements()) {
+                URL resource = resources.nextElement();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(), "UTF-8"));
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        line = line.trim();
+                        if (!line.isEmpty() && !line.startsWith("#")) {
+                            result.add(line);
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Loaded mapping provider index from " + resource);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load " + INDEX_LOCATION, e);
+        }
+        return result;
+    }
+
+    private void logDiscoveredMappings(Collection<HandcraftMapper.MappingKey> mappings) {
+        if (logger.isDebugEnabled()) {
+            for (HandcraftMapper.MappingKey mapping : mappings) {
+                logger.debug("Discovered mapping " + mapping);
+            }
+        }
+    }
 }
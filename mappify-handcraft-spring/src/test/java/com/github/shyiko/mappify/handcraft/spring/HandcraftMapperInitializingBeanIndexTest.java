@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft.spring;
+
+import com.github.shyiko.mappify.handcraft.HandcraftMapper;
+import com.github.shyiko.mappify.handcraft.Mapping;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.StaticApplicationContext;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class HandcraftMapperInitializingBeanIndexTest {
+
+    @Test
+    public void testProvidersAreLookedUpInIndex() throws Exception {
+        HandcraftMapper mapper = new HandcraftMapper();
+        HandcraftMapperInitializingBean initializingBean = new HandcraftMapperInitializingBean();
+        initializingBean.setMapper(mapper);
+        initializingBean.postProcessAfterInitialization(new IndexedProvider(), "indexedProvider");
+        // not in the index but annotated with @MappingProvider
+        initializingBean.postProcessAfterInitialization(new UnindexedProvider(), "unindexedProvider");
+        initializingBean.postProcessAfterInitialization(new Object(), "object");
+        assertTrue(mapper.allowsToMap(Source.class, Target.class));
+        assertTrue(mapper.allowsToMap(Target.class, Source.class));
+        assertEquals(mapper.getRegisteredMappings().size(), 2);
+    }
+
+    @Test
+    public void testIgnoreIndex() throws Exception {
+        HandcraftMapper mapper = new HandcraftMapper();
+        HandcraftMapperInitializingBean initializingBean = new HandcraftMapperInitializingBean();
+        initializingBean.setMapper(mapper);
+        initializingBean.setIgnoreIndex(true);
+        initializingBean.postProcessAfterInitialization(new IndexedProvider(), "indexedProvider");
+        initializingBean.postProcessAfterInitialization(new UnindexedProvider(), "unindexedProvider");
+        assertFalse(mapper.allowsToMap(Source.class, Target.class));
+        assertTrue(mapper.allowsToMap(Target.class, Source.class));
+    }
+
+    @Test
+    public void testBatchRegistration() throws Exception {
+        HandcraftMapper mapper = new HandcraftMapper();
+        HandcraftMapperInitializingBean initializingBean = new HandcraftMapperInitializingBean();
+        initializingBean.setMapper(mapper);
+        initializingBean.setBatchRegistration(true);
+        initializingBean.postProcessAfterInitialization(new IndexedProvider(), "indexedProvider");
+        assertFalse(mapper.allowsToMap(Source.class, Target.class));
+        initializingBean.onApplicationEvent(new ContextRefreshedEvent(new StaticApplicationContext()));
+        assertTrue(mapper.allowsToMap(Source.class, Target.class));
+    }
+
+    public static class IndexedProvider {
+
+        @Mapping
+        public void map(Source source, Target target) {
+        }
+    }
+
+    @MappingProvider
+    public static class UnindexedProvider {
+
+        @Mapping
+        public void map(Target source, Source target) {
+        }
+    }
+
+    public static class Source {
+    }
+
+    public static class Target {
+    }
+}
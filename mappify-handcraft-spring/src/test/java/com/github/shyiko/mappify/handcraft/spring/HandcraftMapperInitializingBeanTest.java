@@ -16,6 +16,7 @@
 package com.github.shyiko.mappify.handcraft.spring;
 
 import com.github.shyiko.mappify.api.Mapper;
+import com.github.shyiko.mappify.handcraft.HandcraftMapper;
 import com.github.shyiko.mappify.handcraft.Mapping;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
@@ -27,6 +28,7 @@ import java.util.Collection;
 import java.util.LinkedList;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 /**
  * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
@@ -54,6 +56,11 @@ public class HandcraftMapperInitializingBeanTest extends AbstractTestNGSpringCon
         assertEquals(dto.properties.size(), 2);
     }
 
+    @Test
+    public void testMapperIsFrozenOnceContextIsRefreshed() {
+        assertTrue(((HandcraftMapper) mapper).isFrozen());
+    }
+
     @Mapping
     public void mapToDTO(Entity entity, EntityDTO entityDTO) {
         entityDTO.id = entity.id;
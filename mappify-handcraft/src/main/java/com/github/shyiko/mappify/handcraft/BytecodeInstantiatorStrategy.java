@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.shyiko.mappify.handcraft.ClassFileSupport.*;
+
+/**
+ * {@link InstantiatorStrategy} which generates (at runtime) a class per target class, calling no-arg constructor
+ * directly (i.e. {@code return new Target();}). Classes which cannot be instantiated from the generated code
+ * (e.g. non-public ones or the ones without public no-arg constructor) are handed over to the fallback strategy
+ * ({@link ReflectiveInstantiatorStrategy} by default).
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class BytecodeInstantiatorStrategy implements InstantiatorStrategy {
+
+    private static final Logger logger = LoggerFactory.getLogger(BytecodeInstantiatorStrategy.class);
+
+    private static final String INSTANTIATOR_CLASS_NAME_PREFIX =
+            "com.github.shyiko.mappify.handcraft.generated.Instantiator$";
+    private static final AtomicInteger instantiatorCounter = new AtomicInteger();
+
+    private final InstantiatorStrategy fallbackStrategy;
+
+    public BytecodeInstantiatorStrategy() {
+        this(new ReflectiveInstantiatorStrategy());
+    }
+
+    /**
+     * @param fallbackStrategy strategy to use for the classes which cannot be instantiated from the generated code
+     */
+    public BytecodeInstantiatorStrategy(InstantiatorStrategy fallbackStrategy) {
+        this.fallbackStrategy = fallbackStrategy;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Instantiator<T> getInstantiator(Class<T> type) {
+        if (isAccessible(type)) {
+            try {
+                String className = INSTANTIATOR_CLASS_NAME_PREFIX + instantiatorCounter.incrementAndGet();
+                byte[] byteCode = generateInstantiatorClass(className.replace('.', '/'), type);
+                Class<?> instantiatorClass = new GeneratedClassLoader(type.getClassLoader(), Instantiator.class).
+                        define(className, byteCode);
+                return (Instantiator<T>) instantiatorClass.newInstance();
+            } catch (Throwable e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Failed to generate instantiator for " + type + ". Falling back to " +
+                            fallbackStrategy.getClass().getName(), e);
+                }
+            }
+        }
+        return fallbackStrategy.getInstantiator(type);
+    }
+
+    protected boolean isAccessible(Class<?> type) {
+        if (type.isInterface() || type.isArray() || type.isPrimitive() ||
+                Modifier.isAbstract(type.getModifiers()) || !isPublic(type)) {
+            return false;
+        }
+        try {
+            Constructor<?> constructor = type.getConstructor();
+            return Modifier.isPublic(constructor.getModifiers());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Generates implementation of {@link Instantiator}, equivalent of
+     * <pre>
+     * public final class ... implements Instantiator {
+     *
+     *     public Object newInstance() {
+     *         return new Target();
+     *     }
+     * }
+     * </pre>
+     */
+    private byte[] generateInstantiatorClass(String internalClassName, Class<?> type) throws IOException {
+        ConstantPool constantPool = new ConstantPool();
+        int thisClassIndex = constantPool.classRef(internalClassName);
+        int superClassIndex = constantPool.classRef(internalName(Object.class));
+        int interfaceIndex = constantPool.classRef(internalName(Instantiator.class));
+        int codeAttributeIndex = constantPool.utf8("Code");
+        int constructorNameIndex = constantPool.utf8("<init>");
+        int constructorDescriptorIndex = constantPool.utf8("()V");
+        int superConstructorIndex = constantPool.methodRef(internalName(Object.class), "<init>", "()V");
+        int newInstanceNameIndex = constantPool.utf8("newInstance");
+        int newInstanceDescriptorIndex = constantPool.utf8("()Ljava/lang/Object;");
+        int typeIndex = constantPool.classRef(internalName(type));
+        int typeConstructorIndex = constantPool.methodRef(internalName(type), "<init>", "()V");
+
+        ByteArrayOutputStream constructorCode = new ByteArrayOutputStream();
+        constructorCode.write(ALOAD_0);
+        constructorCode.write(INVOKESPECIAL);
+        writeShort(constructorCode, superConstructorIndex);
+        constructorCode.write(RETURN);
+
+        ByteArrayOutputStream newInstanceCode = new ByteArrayOutputStream();
+        newInstanceCode.write(NEW);
+        writeShort(newInstanceCode, typeIndex);
+        newInstanceCode.write(DUP);
+        newInstanceCode.write(INVOKESPECIAL);
+        writeShort(newInstanceCode, typeConstructorIndex);
+        newInstanceCode.write(ARETURN);
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(result);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0); // minor version
+        out.writeShort(49); // major version (Java 5, so that no stack map frames are required)
+        constantPool.writeTo(out);
+        out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+        out.writeShort(thisClassIndex);
+        out.writeShort(superClassIndex);
+        out.writeShort(1); // interfaces
+        out.writeShort(interfaceIndex);
+        out.writeShort(0); // fields
+        out.writeShort(2); // methods
+        writeMethod(out, ACC_PUBLIC, constructorNameIndex, constructorDescriptorIndex, codeAttributeIndex,
+                1, 1, constructorCode.toByteArray());
+        writeMethod(out, ACC_PUBLIC, newInstanceNameIndex, newInstanceDescriptorIndex, codeAttributeIndex,
+                2, 1, newInstanceCode.toByteArray());
+        out.writeShort(0); // attributes
+        out.flush();
+        return result.toByteArray();
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import com.github.shyiko.mappify.api.MappingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.shyiko.mappify.handcraft.ClassFileSupport.*;
+
+/**
+ * {@link MappingInvokerFactory} which generates (at runtime) a class per mapping method, calling the method directly
+ * (without reflection and allocation of the arguments array). Methods which cannot be called from the generated code
+ * (e.g. ones declared by non-public classes) are handed over to the fallback factory
+ * ({@link ReflectiveMappingInvokerFactory} by default).
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class BytecodeMappingInvokerFactory implements MappingInvokerFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(BytecodeMappingInvokerFactory.class);
+
+    private static final String INVOKER_CLASS_NAME_PREFIX =
+            "com.github.shyiko.mappify.handcraft.generated.MappingInvoker$";
+    private static final AtomicInteger invokerCounter = new AtomicInteger();
+
+    private final MappingInvokerFactory fallbackFactory;
+
+    public BytecodeMappingInvokerFactory() {
+        this(new ReflectiveMappingInvokerFactory());
+    }
+
+    /**
+     * @param fallbackFactory factory to use for the methods which cannot be called from the generated code
+     */
+    public BytecodeMappingInvokerFactory(MappingInvokerFactory fallbackFactory) {
+        this.fallbackFactory = fallbackFactory;
+    }
+
+    @Override
+    public MappingInvoker createInvoker(Object mappingProvider, Method method) {
+        if (isAccessible(method)) {
+            try {
+                String className = INVOKER_CLASS_NAME_PREFIX + invokerCounter.incrementAndGet();
+                byte[] byteCode = generateInvokerClass(className.replace('.', '/'), method);
+                Class<?> invokerClass = new GeneratedClassLoader(method.getDeclaringClass().getClassLoader(),
+                        GeneratedMappingInvoker.class, MappingContext.class).define(className, byteCode);
+                return (MappingInvoker) invokerClass.getConstructor(Object.class).newInstance(mappingProvider);
+            } catch (Throwable e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Failed to generate invoker for " + method + ". Falling back to " +
+                            fallbackFactory.getClass().getName(), e);
+                }
+            }
+        }
+        return fallbackFactory.createInvoker(mappingProvider, method);
+    }
+
+    protected boolean isAccessible(Method method) {
+        if (!Modifier.isPublic(method.getModifiers()) || !isPublic(method.getDeclaringClass())) {
+            return false;
+        }
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (parameterType.isPrimitive() || !isPublic(parameterType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generates subclass of {@link GeneratedMappingInvoker}, equivalent of
+     * <pre>
+     * public final class ... extends GeneratedMappingInvoker {
+     *
+     *     public ...(Object delegatee) {
+     *         super(delegatee);
+     *     }
+     *
+     *     protected Object invoke(Object delegatee, Object source, Object target, MappingContext mappingContext) {
+     *         return ((Provider) delegatee).method((Source) source[, (Target) target][, (Context) mappingContext]);
+     *     }
+     *
+     *     // only if method returns long (int/double)
+     *     protected long invokeForLong(Object delegatee, Object source, MappingContext mappingContext) {
+     *         return ((Provider) delegatee).method((Source) source[, (Context) mappingContext]);
+     *     }
+     * }
+     * </pre>
+     */
+    private byte[] generateInvokerClass(String internalClassName, Method method) throws IOException {
+        String superClassName = internalName(GeneratedMappingInvoker.class);
+        Class<?> returnType = method.getReturnType();
+        ConstantPool constantPool = new ConstantPool();
+        int thisClassIndex = constantPool.classRef(internalClassName);
+        int superClassIndex = constantPool.classRef(superClassName);
+        int codeAttributeIndex = constantPool.utf8("Code");
+        int constructorNameIndex = constantPool.utf8("<init>");
+        int constructorDescriptorIndex = constantPool.utf8("(Ljava/lang/Object;)V");
+        int superConstructorIndex = constantPool.methodRef(superClassName, "<init>", "(Ljava/lang/Object;)V");
+        int invokeNameIndex = constantPool.utf8("invoke");
+        int invokeDescriptorIndex = constantPool.utf8("(Ljava/lang/Object;Ljava/lang/Object;Ljava/lang/Object;" +
+                descriptor(MappingContext.class) + ")Ljava/lang/Object;");
+        String primitiveInvokeName = PRIMITIVE_INVOKE_NAMES.get(returnType);
+        int primitiveInvokeNameIndex = 0, primitiveInvokeDescriptorIndex = 0;
+        if (primitiveInvokeName != null) {
+            primitiveInvokeNameIndex = constantPool.utf8(primitiveInvokeName);
+            primitiveInvokeDescriptorIndex = constantPool.utf8("(Ljava/lang/Object;Ljava/lang/Object;" +
+                    descriptor(MappingContext.class) + ")" + descriptor(returnType));
+        }
+
+        ByteArrayOutputStream constructorCode = new ByteArrayOutputStream();
+        constructorCode.write(ALOAD_0);
+        constructorCode.write(ALOAD_1);
+        constructorCode.write(INVOKESPECIAL);
+        writeShort(constructorCode, superConstructorIndex);
+        constructorCode.write(RETURN);
+
+        ByteArrayOutputStream invokeCode = new ByteArrayOutputStream();
+        // locals: 0 - this, 1 - delegatee, 2 - source, 3 - target, 4 - mappingContext
+        int stackSize = writeMethodCall(invokeCode, constantPool, method,
+                returnType == Void.TYPE ? new int[]{2, 3, 4} : new int[]{2, 4});
+        if (returnType == Void.TYPE) {
+            invokeCode.write(ACONST_NULL);
+        } else if (returnType.isPrimitive()) {
+            Class<?> wrapperType = PRIMITIVE_WRAPPERS.get(returnType);
+            invokeCode.write(INVOKESTATIC);
+            writeShort(invokeCode, constantPool.methodRef(internalName(wrapperType), "valueOf",
+                    "(" + descriptor(returnType) + ")" + descriptor(wrapperType)));
+        }
+        invokeCode.write(ARETURN);
+
+        byte[] primitiveInvokeCode = null;
+        int primitiveInvokeStackSize = 0;
+        if (primitiveInvokeName != null) {
+            ByteArrayOutputStream code = new ByteArrayOutputStream();
+            // locals: 0 - this, 1 - delegatee, 2 - source, 3 - mappingContext
+            primitiveInvokeStackSize = writeMethodCall(code, constantPool, method, new int[]{2, 3});
+            code.write(returnType == Long.TYPE ? LRETURN : returnType == Integer.TYPE ? IRETURN : DRETURN);
+            primitiveInvokeCode = code.toByteArray();
+        }
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(result);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0); // minor version
+        out.writeShort(49); // major version (Java 5, so that no stack map frames are required)
+        constantPool.writeTo(out);
+        out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+        out.writeShort(thisClassIndex);
+        out.writeShort(superClassIndex);
+        out.writeShort(0); // interfaces
+        out.writeShort(0); // fields
+        out.writeShort(primitiveInvokeCode == null ? 2 : 3); // methods
+        writeMethod(out, ACC_PUBLIC, constructorNameIndex, constructorDescriptorIndex, codeAttributeIndex,
+                2, 2, constructorCode.toByteArray());
+        writeMethod(out, ACC_PROTECTED, invokeNameIndex, invokeDescriptorIndex, codeAttributeIndex,
+                Math.max(stackSize, 2), 5, invokeCode.toByteArray());
+        if (primitiveInvokeCode != null) {
+            writeMethod(out, ACC_PROTECTED, primitiveInvokeNameIndex, primitiveInvokeDescriptorIndex,
+                    codeAttributeIndex, Math.max(primitiveInvokeStackSize, 2), 4, primitiveInvokeCode);
+        }
+        out.writeShort(0); // attributes
+        out.flush();
+        return result.toByteArray();
+    }
+
+    /**
+     * Writes call of the mapping method (with arguments taken from the given local variable slots).
+     * @return stack size required
+     */
+    private int writeMethodCall(ByteArrayOutputStream code, ConstantPool constantPool, Method method,
+                                int[] parameterSlots) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        int stackSize = 0;
+        if (!isStatic) {
+            code.write(ALOAD_1);
+            writeCheckCast(code, constantPool, declaringClass);
+            stackSize++;
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            code.write(ALOAD);
+            code.write(parameterSlots[i]);
+            Class<?> parameterType = parameterTypes[i];
+            if (parameterType != Object.class && parameterType != MappingContext.class) {
+                writeCheckCast(code, constantPool, parameterType);
+            }
+            stackSize++;
+        }
+        code.write(isStatic ? INVOKESTATIC : INVOKEVIRTUAL);
+        writeShort(code, constantPool.methodRef(internalName(declaringClass), method.getName(), descriptor(method)));
+        return stackSize;
+    }
+
+    private void writeCheckCast(ByteArrayOutputStream code, ConstantPool constantPool, Class<?> type) {
+        code.write(CHECKCAST);
+        writeShort(code, constantPool.classRef(internalName(type)));
+    }
+
+    private static final Map<Class<?>, Class<?>> PRIMITIVE_WRAPPERS = new HashMap<Class<?>, Class<?>>();
+
+    static {
+        PRIMITIVE_WRAPPERS.put(Boolean.TYPE, Boolean.class);
+        PRIMITIVE_WRAPPERS.put(Byte.TYPE, Byte.class);
+        PRIMITIVE_WRAPPERS.put(Character.TYPE, Character.class);
+        PRIMITIVE_WRAPPERS.put(Short.TYPE, Short.class);
+        PRIMITIVE_WRAPPERS.put(Integer.TYPE, Integer.class);
+        PRIMITIVE_WRAPPERS.put(Long.TYPE, Long.class);
+        PRIMITIVE_WRAPPERS.put(Float.TYPE, Float.class);
+        PRIMITIVE_WRAPPERS.put(Double.TYPE, Double.class);
+    }
+
+    /**
+     * return type -&gt; name of the {@link GeneratedMappingInvoker} method to override
+     */
+    private static final Map<Class<?>, String> PRIMITIVE_INVOKE_NAMES = new HashMap<Class<?>, String>();
+
+    static {
+        PRIMITIVE_INVOKE_NAMES.put(Long.TYPE, "invokeForLong");
+        PRIMITIVE_INVOKE_NAMES.put(Integer.TYPE, "invokeForInt");
+        PRIMITIVE_INVOKE_NAMES.put(Double.TYPE, "invokeForDouble");
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * {@link ProxyNarrowingStrategy} which classifies each runtime class only once (the result is memoized per class,
+ * in a bounded cache which references classes weakly, so that proxy classes can still be unloaded).
+ * Classes which aren't proxies are narrowed to themselves without calling into any framework code.
+ * Hibernate proxies (instances of org.hibernate.proxy.HibernateProxy) are narrowed by the delegate strategy
+ * (which is {@link HibernateProxyNarrowingStrategy} by default). Other subclass-based proxies (Javassist, ByteBuddy,
+ * CGLIB/Spring) are recognized by their marker interfaces (see {@link #DEFAULT_PROXY_MARKER_INTERFACES}) and narrowed
+ * to the nearest superclass which is not a proxy. Interface-based (JDK) proxies are never narrowed (mappings are
+ * resolved through the interfaces they implement).
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class CachingProxyNarrowingStrategy implements ProxyNarrowingStrategy {
+
+    public static final Collection<String> DEFAULT_PROXY_MARKER_INTERFACES = Arrays.asList(
+        "javassist.util.proxy.ProxyObject",
+        "javassist.util.proxy.Proxy",
+        "org.hibernate.proxy.ProxyConfiguration", // ByteBuddy proxies generated by Hibernate
+        "net.sf.cglib.proxy.Factory",
+        "org.springframework.cglib.proxy.Factory",
+        "org.springframework.aop.SpringProxy"
+    );
+
+    private static final String HIBERNATE_PROXY_INTERFACE = "org.hibernate.proxy.HibernateProxy";
+    /**
+     * value of the {@link #cache} for the classes which must be narrowed by the {@link #delegate}
+     */
+    private static final Object DELEGATE = new Object();
+    /**
+     * value of the {@link #cache} for the classes which are narrowed to themselves
+     */
+    private static final Object SELF = new Object();
+
+    private final ProxyNarrowingStrategy delegate;
+    private final Set<String> proxyMarkerInterfaces;
+    /**
+     * runtime class -&gt; {@link #DELEGATE}, {@link #SELF} or WeakReference to the narrowed class (holding it strongly
+     * would keep runtime class, which is usually defined by the same class loader, reachable)
+     */
+    private final MappingResolutionCache<Object> cache = new MappingResolutionCache<Object>(4096);
+
+    public CachingProxyNarrowingStrategy() {
+        this(new HibernateProxyNarrowingStrategy());
+    }
+
+    /**
+     * @param delegate strategy to use for the Hibernate proxies
+     */
+    public CachingProxyNarrowingStrategy(ProxyNarrowingStrategy delegate) {
+        this(delegate, DEFAULT_PROXY_MARKER_INTERFACES);
+    }
+
+    /**
+     * @param delegate strategy to use for the Hibernate proxies
+     * @param proxyMarkerInterfaces fully qualified names of the interfaces implemented by the subclass-based proxies
+     */
+    public CachingProxyNarrowingStrategy(ProxyNarrowingStrategy delegate, Collection<String> proxyMarkerInterfaces) {
+        this.delegate = delegate;
+        this.proxyMarkerInterfaces = new HashSet<String>(proxyMarkerInterfaces);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Class narrow(Object target) {
+        Class type = target.getClass();
+        Object result = cache.get(type);
+        if (result == null) {
+            result = classify(type);
+            cache.put(type, result == type ? SELF : result == DELEGATE ? DELEGATE :
+                    new WeakReference<Class>((Class) result));
+            if (result != DELEGATE) {
+                return (Class) result;
+            }
+        }
+        if (result == SELF) {
+            return type;
+        }
+        if (result == DELEGATE) {
+            return delegate.narrow(target);
+        }
+        // superclass can't be unloaded while runtime class is reachable
+        return ((WeakReference<Class>) result).get();
+    }
+
+    /**
+     * @param type runtime class
+     * @return narrowed class or {@link #DELEGATE}
+     */
+    protected Object classify(Class type) {
+        if (implementsInterface(type, HIBERNATE_PROXY_INTERFACE)) {
+            return DELEGATE;
+        }
+        if (Proxy.isProxyClass(type)) {
+            return type; // superclass is java.lang.reflect.Proxy, which is of no use for the mapping lookup
+        }
+        Class result = type;
+        while (result.getSuperclass() != null && result.getSuperclass() != Proxy.class && isProxyClass(result)) {
+            result = result.getSuperclass();
+        }
+        return result;
+    }
+
+    protected boolean isProxyClass(Class type) {
+        for (Class interfaceClass : type.getInterfaces()) {
+            if (proxyMarkerInterfaces.contains(interfaceClass.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean implementsInterface(Class type, String interfaceName) {
+        for (Class cls = type; cls != null; cls = cls.getSuperclass()) {
+            for (Class interfaceClass : cls.getInterfaces()) {
+                if (interfaceClass.getName().equals(interfaceName) ||
+                        implementsInterface(interfaceClass, interfaceName)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bits and pieces shared by the generators of the class files (see {@link BytecodeMappingInvokerFactory} and
+ * {@link BytecodeInstantiatorStrategy}).
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+final class ClassFileSupport {
+
+    private ClassFileSupport() {
+    }
+
+    /**
+     * @return true if type (or, in case of array, its component type) is accessible from any package
+     */
+    static boolean isPublic(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        for (Class<?> cls = type; cls != null; cls = cls.getEnclosingClass()) {
+            if (!Modifier.isPublic(cls.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static void writeShort(ByteArrayOutputStream out, int value) {
+        out.write((value >>> 8) & 0xFF);
+        out.write(value & 0xFF);
+    }
+
+    static void writeMethod(DataOutputStream out, int accessFlags, int nameIndex, int descriptorIndex,
+            int codeAttributeIndex, int maxStack, int maxLocals, byte[] code) throws IOException {
+        out.writeShort(accessFlags);
+        out.writeShort(nameIndex);
+        out.writeShort(descriptorIndex);
+        out.writeShort(1); // attributes
+        out.writeShort(codeAttributeIndex);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0); // exception table
+        out.writeShort(0); // attributes
+    }
+
+    static String internalName(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    static String descriptor(Method method) {
+        StringBuilder sb = new StringBuilder("(");
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            sb.append(descriptor(parameterType));
+        }
+        return sb.append(')').append(descriptor(method.getReturnType())).toString();
+    }
+
+    static String descriptor(Class<?> type) {
+        if (type.isArray()) {
+            return internalName(type);
+        }
+        if (type.isPrimitive()) {
+            return String.valueOf(PRIMITIVE_DESCRIPTORS.get(type));
+        }
+        return "L" + internalName(type) + ";";
+    }
+
+    static final Map<Class<?>, Character> PRIMITIVE_DESCRIPTORS = new HashMap<Class<?>, Character>();
+
+    static {
+        PRIMITIVE_DESCRIPTORS.put(Void.TYPE, 'V');
+        PRIMITIVE_DESCRIPTORS.put(Boolean.TYPE, 'Z');
+        PRIMITIVE_DESCRIPTORS.put(Byte.TYPE, 'B');
+        PRIMITIVE_DESCRIPTORS.put(Character.TYPE, 'C');
+        PRIMITIVE_DESCRIPTORS.put(Short.TYPE, 'S');
+        PRIMITIVE_DESCRIPTORS.put(Integer.TYPE, 'I');
+        PRIMITIVE_DESCRIPTORS.put(Long.TYPE, 'J');
+        PRIMITIVE_DESCRIPTORS.put(Float.TYPE, 'F');
+        PRIMITIVE_DESCRIPTORS.put(Double.TYPE, 'D');
+    }
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PROTECTED = 0x0004;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    static final int ACONST_NULL = 0x01;
+    static final int DUP = 0x59;
+    static final int ALOAD = 0x19;
+    static final int ALOAD_0 = 0x2A;
+    static final int ALOAD_1 = 0x2B;
+    static final int IRETURN = 0xAC;
+    static final int LRETURN = 0xAD;
+    static final int DRETURN = 0xAF;
+    static final int ARETURN = 0xB0;
+    static final int RETURN = 0xB1;
+    static final int INVOKEVIRTUAL = 0xB6;
+    static final int INVOKESPECIAL = 0xB7;
+    static final int INVOKESTATIC = 0xB8;
+    static final int NEW = 0xBB;
+    static final int CHECKCAST = 0xC0;
+
+    static final class ConstantPool {
+
+        static final int CONSTANT_UTF8 = 1;
+        static final int CONSTANT_CLASS = 7;
+        static final int CONSTANT_METHOD_REF = 10;
+        static final int CONSTANT_NAME_AND_TYPE = 12;
+
+        private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+        private final List<byte[]> entries = new ArrayList<byte[]>();
+
+        public int utf8(String value) {
+            String key = "utf8:" + value;
+            Integer index = indexes.get(key);
+            if (index == null) {
+                ByteArrayOutputStream entry = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(entry);
+                try {
+                    out.writeByte(CONSTANT_UTF8);
+                    out.writeUTF(value);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                index = add(key, entry.toByteArray());
+            }
+            return index;
+        }
+
+        public int classRef(String internalName) {
+            String key = "class:" + internalName;
+            Integer index = indexes.get(key);
+            if (index == null) {
+                index = add(key, entry(CONSTANT_CLASS, utf8(internalName)));
+            }
+            return index;
+        }
+
+        public int methodRef(String owner, String name, String descriptor) {
+            String key = "method:" + owner + "." + name + descriptor;
+            Integer index = indexes.get(key);
+            if (index == null) {
+                int classIndex = classRef(owner);
+                int nameAndTypeIndex = nameAndType(name, descriptor);
+                index = add(key, entry(CONSTANT_METHOD_REF, classIndex, nameAndTypeIndex));
+            }
+            return index;
+        }
+
+        private int nameAndType(String name, String descriptor) {
+            String key = "nat:" + name + ":" + descriptor;
+            Integer index = indexes.get(key);
+            if (index == null) {
+                int nameIndex = utf8(name);
+                int descriptorIndex = utf8(descriptor);
+                index = add(key, entry(CONSTANT_NAME_AND_TYPE, nameIndex, descriptorIndex));
+            }
+            return index;
+        }
+
+        private byte[] entry(int tag, int... references) {
+            byte[] result = new byte[1 + references.length * 2];
+            result[0] = (byte) tag;
+            for (int i = 0; i < references.length; i++) {
+                result[1 + i * 2] = (byte) (references[i] >>> 8);
+                result[2 + i * 2] = (byte) references[i];
+            }
+            return result;
+        }
+
+        private int add(String key, byte[] entry) {
+            entries.add(entry);
+            int index = entries.size(); // constant pool is 1-based
+            indexes.put(key, index);
+            return index;
+        }
+
+        public void writeTo(DataOutputStream out) throws IOException {
+            out.writeShort(entries.size() + 1);
+            for (byte[] entry : entries) {
+                out.write(entry);
+            }
+        }
+    }
+
+    /**
+     * Class loader of the generated classes. Classes referenced by the generated code (which are not loaded by the
+     * parent) must come from the same class loader as {@link HandcraftMapper}.
+     */
+    static final class GeneratedClassLoader extends ClassLoader {
+
+        private final Map<String, Class<?>> sharedClasses = new HashMap<String, Class<?>>();
+
+        GeneratedClassLoader(ClassLoader parent, Class<?>... sharedClasses) {
+            super(parent);
+            for (Class<?> sharedClass : sharedClasses) {
+                this.sharedClasses.put(sharedClass.getName(), sharedClass);
+            }
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            Class<?> sharedClass = sharedClasses.get(name);
+            if (sharedClass != null) {
+                return sharedClass;
+            }
+            return super.loadClass(name, resolve);
+        }
+
+        public Class<?> define(String name, byte[] byteCode) {
+            return defineClass(name, byteCode, 0, byteCode.length);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Computes (and caches) linearization of the class hierarchy, which is: the class itself, its superclasses (most
+ * specific first, excluding {@link Object}), all the implemented interfaces (breadth-first, in the declaration order,
+ * each one listed once) and, finally, {@link Object}. Classes are referenced weakly (so that caching doesn't keep
+ * them from being unloaded).
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+class ClassLinearizer {
+
+    private final MappingResolutionCache<WeakReference<Class>[]> cache;
+
+    ClassLinearizer(int maximumSize) {
+        this.cache = new MappingResolutionCache<WeakReference<Class>[]>(maximumSize);
+    }
+
+    public Class[] linearize(Class type) {
+        WeakReference<Class>[] linearization = cache.get(type);
+        if (linearization == null) {
+            Class[] result = computeLinearization(type);
+            linearization = newReferenceArray(result.length);
+            for (int i = 0; i < result.length; i++) {
+                linearization[i] = new WeakReference<Class>(result[i]);
+            }
+            cache.put(type, linearization);
+            return result;
+        }
+        Class[] result = new Class[linearization.length];
+        for (int i = 0; i < result.length; i++) {
+            // supertypes can't be unloaded while type itself is reachable
+            result[i] = linearization[i].get();
+        }
+        return result;
+    }
+
+    static Class[] computeLinearization(Class type) {
+        List<Class> classes = new ArrayList<Class>();
+        for (Class cls = type; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            classes.add(cls);
+        }
+        Set<Class> result = new LinkedHashSet<Class>(classes);
+        List<Class> queue = new ArrayList<Class>(classes);
+        for (int i = 0; i < queue.size(); i++) {
+            for (Class interfaceClass : queue.get(i).getInterfaces()) {
+                if (result.add(interfaceClass)) {
+                    queue.add(interfaceClass);
+                }
+            }
+        }
+        if (!type.isPrimitive()) {
+            result.add(Object.class);
+        }
+        return result.toArray(new Class[result.size()]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static WeakReference<Class>[] newReferenceArray(int length) {
+        return new WeakReference[length];
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+/**
+ * Maps elements of the source one at a time (as they are requested by the lazy views, see
+ * {@link LazyMappedList} and {@link LazyMappedIterable}).
+ *
+ * @param <T> target type
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+interface ElementMapper<T> {
+
+    /**
+     * @param source element of the source (nullable)
+     * @param index index of the element within the source
+     * @return target, null if source is null
+     */
+    T map(Object source, int index);
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import java.util.Map;
+
+/**
+ * Immutable (source class, target class, mapping name) -&gt; value table, backed by the plain arrays (open
+ * addressing with linear probing). Hash function is seeded with the one (out of {@link #SEEDS} tried) which minimizes
+ * probing, which for the most of the tables means that each present key is found in its home slot. Lookups neither
+ * allocate nor synchronize.
+ *
+ * @param <V> value type
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class FrozenMappingTable<V> {
+
+    private static final int SEEDS = 32;
+
+    private final int size;
+    private final int mask;
+    private final int multiplier;
+    private final Class[] sourceClasses;
+    private final Class[] targetClasses;
+    private final String[] mappingNames;
+    private final Object[] values;
+
+    public FrozenMappingTable(Map<HandcraftMapper.MappingKey, ? extends V> entries) {
+        size = entries.size();
+        int capacity = 2;
+        while (capacity < size * 2) {
+            capacity <<= 1;
+        }
+        mask = capacity - 1;
+        HandcraftMapper.MappingKey[] keys = entries.keySet().toArray(new HandcraftMapper.MappingKey[size]);
+        int bestMultiplier = multiplier(0), leastDisplacement = Integer.MAX_VALUE;
+        for (int seed = 0; seed < SEEDS && leastDisplacement != 0; seed++) {
+            int displacement = displacement(keys, multiplier(seed));
+            if (displacement < leastDisplacement) {
+                leastDisplacement = displacement;
+                bestMultiplier = multiplier(seed);
+            }
+        }
+        multiplier = bestMultiplier;
+        sourceClasses = new Class[capacity];
+        targetClasses = new Class[capacity];
+        mappingNames = new String[capacity];
+        values = new Object[capacity];
+        for (HandcraftMapper.MappingKey key : keys) {
+            int index = index(key.getSourceClass(), key.getTargetClass(), key.getMappingName(), multiplier);
+            while (sourceClasses[index] != null) {
+                index = (index + 1) & mask;
+            }
+            sourceClasses[index] = key.getSourceClass();
+            targetClasses[index] = key.getTargetClass();
+            mappingNames[index] = key.getMappingName().intern();
+            values[index] = entries.get(key);
+        }
+    }
+
+    /**
+     * @param sourceClass source class
+     * @param targetClass target class
+     * @param mappingName mapping name
+     * @return value associated with the given triple, null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Class sourceClass, Class targetClass, String mappingName) {
+        int index = index(sourceClass, targetClass, mappingName, multiplier);
+        Class cls;
+        while ((cls = sourceClasses[index]) != null) {
+            if (cls == sourceClass && targetClasses[index] == targetClass &&
+                    (mappingNames[index] == mappingName || mappingNames[index].equals(mappingName))) {
+                return (V) values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return total number of the extra probes required to find each of the present keys (0 means that table is
+     * perfectly hashed)
+     */
+    public int getDisplacement() {
+        int result = 0;
+        for (int i = 0; i < sourceClasses.length; i++) {
+            if (sourceClasses[i] != null) {
+                int home = index(sourceClasses[i], targetClasses[i], mappingNames[i], multiplier);
+                result += (i - home) & mask;
+            }
+        }
+        return result;
+    }
+
+    private int displacement(HandcraftMapper.MappingKey[] keys, int multiplier) {
+        boolean[] occupied = new boolean[mask + 1];
+        int result = 0;
+        for (HandcraftMapper.MappingKey key : keys) {
+            int index = index(key.getSourceClass(), key.getTargetClass(), key.getMappingName(), multiplier);
+            while (occupied[index]) {
+                index = (index + 1) & mask;
+                result++;
+            }
+            occupied[index] = true;
+        }
+        return result;
+    }
+
+    private int index(Class sourceClass, Class targetClass, String mappingName, int multiplier) {
+        int hash = (sourceClass.hashCode() * 31 + targetClass.hashCode()) * 31 + mappingName.hashCode();
+        hash *= multiplier;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static int multiplier(int seed) {
+        return (0x9E3779B9 + seed * 0x632BE5AB) | 1;
+    }
+}
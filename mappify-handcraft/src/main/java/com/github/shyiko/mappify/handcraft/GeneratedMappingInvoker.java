@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import com.github.shyiko.mappify.api.MappingContext;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Base class for the invokers generated by {@link BytecodeMappingInvokerFactory}. Wraps whatever is thrown by the
+ * mapping method into {@link InvocationTargetException} (the same way {@link java.lang.reflect.Method#invoke} does),
+ * so that error reporting doesn't depend on the invoker in use.
+ * <p/>
+ * Invokers of the long/int/double-returning methods are expected to override corresponding invokeForXXX method
+ * (default implementations unbox the result of {@link #invoke(Object, Object, Object, MappingContext)}).
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public abstract class GeneratedMappingInvoker implements PrimitiveMappingInvoker {
+
+    private final Object delegatee;
+
+    protected GeneratedMappingInvoker(Object delegatee) {
+        this.delegatee = delegatee;
+    }
+
+    @Override
+    public final Object invoke(Object source, Object target, MappingContext mappingContext)
+            throws InvocationTargetException {
+        try {
+            return invoke(delegatee, source, target, mappingContext);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    protected abstract Object invoke(Object delegatee, Object source, Object target, MappingContext mappingContext)
+            throws Throwable;
+
+    @Override
+    public final long invokeForLong(Object source, MappingContext mappingContext) throws InvocationTargetException {
+        try {
+            return invokeForLong(delegatee, source, mappingContext);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    @Override
+    public final int invokeForInt(Object source, MappingContext mappingContext) throws InvocationTargetException {
+        try {
+            return invokeForInt(delegatee, source, mappingContext);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    @Override
+    public final double invokeForDouble(Object source, MappingContext mappingContext)
+            throws InvocationTargetException {
+        try {
+            return invokeForDouble(delegatee, source, mappingContext);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    protected long invokeForLong(Object delegatee, Object source, MappingContext mappingContext) throws Throwable {
+        return (Long) invoke(delegatee, source, null, mappingContext);
+    }
+
+    protected int invokeForInt(Object delegatee, Object source, MappingContext mappingContext) throws Throwable {
+        return (Integer) invoke(delegatee, source, null, mappingContext);
+    }
+
+    protected double invokeForDouble(Object delegatee, Object source, MappingContext mappingContext)
+            throws Throwable {
+        return (Double) invoke(delegatee, source, null, mappingContext);
+    }
+}
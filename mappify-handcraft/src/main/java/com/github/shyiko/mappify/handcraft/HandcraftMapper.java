@@ -15,18 +15,37 @@
  */
 package com.github.shyiko.mappify.handcraft;
 
+import com.github.shyiko.mappify.api.AbstractBoundMapping;
 import com.github.shyiko.mappify.api.AbstractMapper;
+import com.github.shyiko.mappify.api.BoundMapping;
 import com.github.shyiko.mappify.api.MappingContext;
 import com.github.shyiko.mappify.api.MappingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.lang.ref.SoftReference;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Simplest {@link com.github.shyiko.mappify.api.Mapper} implementation which delegates mappings to the
@@ -36,10 +55,89 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class HandcraftMapper extends AbstractMapper {
 
+    /**
+     * @deprecated bulk methods reuse resolved mappings automatically (per runtime class of the element), which is
+     * safe for the collections of mixed types as well. Hint is ignored
+     */
+    @Deprecated
     public static final String HINT_REUSE_MAPPING = "handcraft_mapper_hint:reuse_mapping";
+    /**
+     * When present in the mapping context, each source instance is mapped to the given target class (using given
+     * mapping name) at most once per context. Repeated references (including the ones encountered while the source
+     * is still being mapped, e.g. bidirectional associations) resolve to the same target instance.
+     * Applies only to the mappings which create target themselves (overlay mappings are never memoized). Note that
+     * cycles can only be broken for the mappings which do not return target (as otherwise target becomes available
+     * only after mapping method returns). Memo is kept as the context {@link MappingContext#getAttachment()
+     * attachment}, and so is shared with the forks created after the first memoized mapping (or, in case of the
+     * parallel mapping, the ones created by the mapper).
+     */
+    public static final String HINT_MEMOIZE_BY_IDENTITY = "handcraft_mapper_hint:memoize_by_identity";
+    private static final Logger logger = LoggerFactory.getLogger(HandcraftMapper.class);
 
     protected Map<MappingKey, Mapping> config = new ConcurrentHashMap<MappingKey, Mapping>();
-    protected volatile ProxyNarrowingStrategy proxyNarrowingStrategy = new HibernateProxyNarrowingStrategy();
+    protected volatile ProxyNarrowingStrategy proxyNarrowingStrategy = new CachingProxyNarrowingStrategy();
+    protected volatile MappingInvokerFactory mappingInvokerFactory = new BytecodeMappingInvokerFactory();
+    protected volatile InstantiatorStrategy instantiatorStrategy = new BytecodeInstantiatorStrategy();
+    /**
+     * target class -&gt; instantiator registered with {@link #registerInstantiator(Class, Instantiator)}
+     */
+    protected Map<Class, Instantiator> registeredInstantiators = new ConcurrentHashMap<Class, Instantiator>();
+    /**
+     * target class -&gt; instantiator created by the {@link #instantiatorStrategy}. Instantiators of the classes
+     * coming from some other class loader than mapper's own (or one of its parents) are referenced softly, as
+     * (generated) instantiators hold their target classes strongly (which would otherwise render weak keys useless
+     * and keep discarded class loaders from being unloaded)
+     */
+    private final MappingResolutionCache<Object> instantiators = new MappingResolutionCache<Object>(1024);
+    /**
+     * striped locks guarding creation of the instantiators (so that concurrent requests for the same target class
+     * don't end up generating a class each, while the ones for the different classes don't wait for each other)
+     */
+    private final Object[] instantiatorLocks = newLocks(32);
+    private final MappingDispatchTable<Mapping> dispatchTable = new MappingDispatchTable<Mapping>();
+    private volatile FrozenMappingTable<Mapping> frozenConfig;
+    /**
+     * same as {@link #frozenConfig} but for the overlay lookups (which are learned separately)
+     */
+    private volatile FrozenMappingTable<Mapping> frozenOverlayConfig;
+    /**
+     * (source element class, target element class, mapping name) -&gt; bulk mapping
+     */
+    protected Map<MappingKey, Mapping> bulkConfig = new ConcurrentHashMap<MappingKey, Mapping>();
+    /**
+     * (source class, target class, mapping name) -&gt; mapping resolved by walking source class hierarchy (or
+     * {@link #NO_MAPPING} if there was none), for the source classes which have no mappings registered directly
+     */
+    private volatile MappingResolutionCache<Mapping> learnedMappings = new MappingResolutionCache<Mapping>(4096);
+    /**
+     * same as {@link #learnedMappings} but for the overlay mapping (where target class hierarchy is walked as well)
+     */
+    private volatile MappingResolutionCache<Mapping> learnedOverlayMappings =
+            new MappingResolutionCache<Mapping>(4096);
+    private volatile MappingResolutionCache<Mapping> bulkResolutions = new MappingResolutionCache<Mapping>(4096);
+    private final ClassLinearizer classLinearizer = new ClassLinearizer(4096);
+    /**
+     * mapping name -&gt; keys of the registered mappings (guarded by itself)
+     */
+    private final Map<String, List<MappingKey>> keysByName = new HashMap<String, List<MappingKey>>();
+    protected volatile boolean failOnAmbiguousMappings;
+    protected volatile Executor parallelExecutor;
+    /**
+     * executor created by the {@link #getParallelExecutor()} (guarded by this)
+     */
+    private ExecutorService ownParallelExecutor;
+    protected volatile int parallelism = Runtime.getRuntime().availableProcessors();
+    protected volatile int parallelismThreshold = 1024;
+    protected volatile boolean reuseDefaultContext;
+    /**
+     * true if subclass overrides {@link #getDefaultContext()} (in which case it's called even for the mappings which
+     * don't accept context)
+     */
+    private final boolean defaultContextOverridden = overridesDefaultContext(getClass());
+    private final ThreadLocal<ReusableMappingContext> reusableContext = new ThreadLocal<ReusableMappingContext>();
+    protected volatile MappingResultCache resultCache = new MappingResultCache(1024);
+    protected volatile MappingListener mappingListener;
+    protected volatile MappingTracer mappingTracer;
 
     public ProxyNarrowingStrategy getProxyNarrowingStrategy() {
         return proxyNarrowingStrategy;
@@ -49,6 +147,177 @@ public class HandcraftMapper extends AbstractMapper {
         this.proxyNarrowingStrategy = proxyNarrowingStrategy;
     }
 
+    public MappingInvokerFactory getMappingInvokerFactory() {
+        return mappingInvokerFactory;
+    }
+
+    /**
+     * @param mappingInvokerFactory factory to use for the mappings registered after this call
+     */
+    public void setMappingInvokerFactory(MappingInvokerFactory mappingInvokerFactory) {
+        this.mappingInvokerFactory = mappingInvokerFactory;
+    }
+
+    public InstantiatorStrategy getInstantiatorStrategy() {
+        return instantiatorStrategy;
+    }
+
+    /**
+     * @param instantiatorStrategy strategy used to instantiate targets of the void-returning mappings (unless there
+     * is an instantiator registered for the target class)
+     */
+    public void setInstantiatorStrategy(InstantiatorStrategy instantiatorStrategy) {
+        synchronized (instantiatorLocks) {
+            this.instantiatorStrategy = instantiatorStrategy;
+            instantiators.clear();
+        }
+    }
+
+    /**
+     * @return executor used by mapParallel/mapToArrayListParallel methods. If none was set, fixed thread pool
+     * (of {@link #getParallelism()} daemon threads) is created upon first request (and owned by the mapper, see
+     * {@link #shutdown()})
+     */
+    public Executor getParallelExecutor() {
+        Executor executor = parallelExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = parallelExecutor;
+                if (executor == null) {
+                    parallelExecutor = executor = ownParallelExecutor = Executors.newFixedThreadPool(parallelism,
+                            new DaemonThreadFactory("mappify-parallel-"));
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * @param parallelExecutor executor to be used by mapParallel/mapToArrayListParallel methods (e.g. ForkJoinPool).
+     * Note that calling thread always takes part in the mapping process, so bounded executors are fine. Lifecycle of
+     * the given executor is up to the caller (executor created by the mapper, if any, is shut down)
+     */
+    public synchronized void setParallelExecutor(Executor parallelExecutor) {
+        if (ownParallelExecutor != null) {
+            ownParallelExecutor.shutdown();
+            ownParallelExecutor = null;
+        }
+        this.parallelExecutor = parallelExecutor;
+    }
+
+    /**
+     * Shut down executor created by the {@link #getParallelExecutor()} (if any). Parallel mapping methods keep
+     * working afterwards, but on the calling thread only. Executor set with
+     * {@link #setParallelExecutor(Executor)} is left intact.
+     */
+    public synchronized void shutdown() {
+        if (ownParallelExecutor != null) {
+            ownParallelExecutor.shutdown();
+        }
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @param parallelism number of tasks source is split into by mapParallel/mapToArrayListParallel methods
+     * (default is number of available processors)
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelismThreshold() {
+        return parallelismThreshold;
+    }
+
+    /**
+     * @param parallelismThreshold minimal source size for which mapParallel/mapToArrayListParallel methods
+     * actually go parallel (default is 1024). Smaller sources are mapped by the calling thread
+     */
+    public void setParallelismThreshold(int parallelismThreshold) {
+        this.parallelismThreshold = parallelismThreshold;
+    }
+
+    public int getMaximumLearnedMappings() {
+        return learnedMappings.getMaximumSize();
+    }
+
+    /**
+     * @param maximumLearnedMappings maximum number of (positive or negative) resolutions remembered by
+     * {@link #findMapping(MappingKey)} (default is 4096). Learned entries are discarded
+     */
+    public void setMaximumLearnedMappings(int maximumLearnedMappings) {
+        this.learnedMappings = new MappingResolutionCache<Mapping>(maximumLearnedMappings);
+        this.learnedOverlayMappings = new MappingResolutionCache<Mapping>(maximumLearnedMappings);
+        this.bulkResolutions = new MappingResolutionCache<Mapping>(maximumLearnedMappings);
+    }
+
+    public boolean isFailOnAmbiguousMappings() {
+        return failOnAmbiguousMappings;
+    }
+
+    /**
+     * @param failOnAmbiguousMappings true if registration of the mapping which is ambiguous with one of the already
+     * registered ones (i.e. the one which would compete with it for the same (source, target) pair) should fail with
+     * {@link IllegalMappingDefinitionException} (default is false, meaning that warning is logged instead)
+     */
+    public void setFailOnAmbiguousMappings(boolean failOnAmbiguousMappings) {
+        this.failOnAmbiguousMappings = failOnAmbiguousMappings;
+    }
+
+    public boolean isReuseDefaultContext() {
+        return reuseDefaultContext;
+    }
+
+    /**
+     * @param reuseDefaultContext true if single object mappings (invoked without explicit context) should reuse
+     * per-thread mapping context instead of creating a new one each time (default is false). Only safe to enable
+     * when none of the mappings keep reference to the context after they return
+     */
+    public void setReuseDefaultContext(boolean reuseDefaultContext) {
+        this.reuseDefaultContext = reuseDefaultContext;
+    }
+
+    public MappingListener getMappingListener() {
+        return mappingListener;
+    }
+
+    /**
+     * @param mappingListener listener to notify about each mapping invocation/resolution (e.g. {@link MappingMetrics}).
+     * nullable
+     */
+    public void setMappingListener(MappingListener mappingListener) {
+        this.mappingListener = mappingListener;
+    }
+
+    public MappingTracer getMappingTracer() {
+        return mappingTracer;
+    }
+
+    /**
+     * @param mappingTracer tracer to record (nested) mapping calls with. nullable
+     */
+    public void setMappingTracer(MappingTracer mappingTracer) {
+        this.mappingTracer = mappingTracer;
+    }
+
+    /**
+     * @return cache of the targets produced by the cacheable mappings (default one holds up to 1024 targets)
+     */
+    public MappingResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * @param resultCache cache to be used for the cacheable mappings
+     */
+    public void setResultCache(MappingResultCache resultCache) {
+        assertNotNull(resultCache, "Result cache cannot be null");
+        this.resultCache = resultCache;
+    }
+
     @Override
     public <C extends Collection<T>, T> C map(
             Collection sourceCollection, Class<T> targetClass, C targetCollection, String mappingName,
@@ -57,35 +326,13 @@ public class HandcraftMapper extends AbstractMapper {
         assertNotNull(targetClass, "Target class cannot be null");
         assertNotNull(mappingName, "Mapping name cannot be null");
         if (!sourceCollection.isEmpty()) {
-            Iterable<Object> previousSource = null;
-            int previousSourceIndex = -1;
-            if (mappingContext != null) {
-                previousSource = mappingContext.getSource();
-                previousSourceIndex = mappingContext.getSourceIndex();
-                mappingContext.setSource(sourceCollection);
-            }
-            try {
-                Iterator sourceCollectionIterator = sourceCollection.iterator();
-                Object source = sourceCollectionIterator.next();
-                Mapping mapping = resolveMapping(source, targetClass, mappingName, mappingContext);
-                int i = 0;
-                if (mappingContext != null) {
-                    mappingContext.setSourceIndex(i++);
-                }
-                targetCollection.add(map(mapping, source, targetClass, mappingName, mappingContext));
-                while (sourceCollectionIterator.hasNext()) {
-                    source = sourceCollectionIterator.next();
-                    if (mappingContext != null) {
-                        mappingContext.setSourceIndex(i++);
-                    }
-                    targetCollection.add(map(mapping, source, targetClass, mappingName, mappingContext));
-                }
-            } finally {
-                if (mappingContext != null) {
-                    mappingContext.setSource(previousSource);
-                    mappingContext.setSourceIndex(previousSourceIndex);
-                }
+            List<T> bulkResult = mapBulk(sourceCollection, targetClass, mappingName, mappingContext);
+            if (bulkResult != null) {
+                targetCollection.addAll(bulkResult);
+                return targetCollection;
             }
+            mapEach(sourceCollection.iterator(), sourceCollection.size(), 0, sourceCollection, targetClass,
+                    mappingName, mappingContext, true, new CollectionSink<T>(targetCollection));
         }
         return targetCollection;
     }
@@ -98,28 +345,14 @@ public class HandcraftMapper extends AbstractMapper {
         assertNotNull(mappingName, "Mapping name cannot be null");
         int sourceArrayLength = sourceArray.length;
         if (sourceArrayLength != 0) {
-            Iterable<Object> previousSource = null;
-            int previousSourceIndex = -1;
-            if (mappingContext != null) {
-                previousSource = mappingContext.getSource();
-                previousSourceIndex = mappingContext.getSourceIndex();
-                mappingContext.setSource(new ArrayIterable<S>(sourceArray));
-            }
-            try {
-                Mapping mapping = resolveMapping(sourceArray[0], targetClass, mappingName, mappingContext);
-                for (int i = 0; i < sourceArrayLength; i++) {
-                    S source = sourceArray[i];
-                    if (mappingContext != null) {
-                        mappingContext.setSourceIndex(i);
-                    }
-                    targetCollection.add(map(mapping, source, targetClass, mappingName, mappingContext));
-                }
-            } finally {
-                if (mappingContext != null) {
-                    mappingContext.setSource(previousSource);
-                    mappingContext.setSourceIndex(previousSourceIndex);
-                }
+            List<T> bulkResult = mapBulk(sourceArray, targetClass, mappingName, mappingContext);
+            if (bulkResult != null) {
+                targetCollection.addAll(bulkResult);
+                return targetCollection;
             }
+            ArrayIterable<S> source = new ArrayIterable<S>(sourceArray);
+            mapEach(source.iterator(), sourceArrayLength, 0, source, targetClass, mappingName, mappingContext, true,
+                    new CollectionSink<T>(targetCollection));
         }
         return targetCollection;
     }
@@ -132,28 +365,16 @@ public class HandcraftMapper extends AbstractMapper {
         assertNotNull(mappingName, "Mapping name cannot be null");
         int sourceArrayLength = sourceArray.length;
         if (sourceArrayLength != 0) {
-            Iterable<Object> previousSource = null;
-            int previousSourceIndex = -1;
-            if (mappingContext != null) {
-                previousSource = mappingContext.getSource();
-                previousSourceIndex = mappingContext.getSourceIndex();
-                mappingContext.setSource(new ArrayIterable<S>(sourceArray));
-            }
-            try {
-                Mapping mapping = resolveMapping(sourceArray[0], targetClass, mappingName, mappingContext);
+            List<T> bulkResult = mapBulk(sourceArray, targetClass, mappingName, mappingContext);
+            if (bulkResult != null) {
                 for (int i = 0; i < sourceArrayLength; i++) {
-                    S source = sourceArray[i];
-                    if (mappingContext != null) {
-                        mappingContext.setSourceIndex(i);
-                    }
-                    targetMap.put(source, map(mapping, source, targetClass, mappingName, mappingContext));
-                }
-            } finally {
-                if (mappingContext != null) {
-                    mappingContext.setSource(previousSource);
-                    mappingContext.setSourceIndex(previousSourceIndex);
+                    targetMap.put(sourceArray[i], bulkResult.get(i));
                 }
+                return targetMap;
             }
+            ArrayIterable<S> source = new ArrayIterable<S>(sourceArray);
+            mapEach(source.iterator(), sourceArrayLength, 0, source, targetClass, mappingName, mappingContext, true,
+                    new MapSink<S, T>(targetMap));
         }
         return targetMap;
     }
@@ -167,28 +388,13 @@ public class HandcraftMapper extends AbstractMapper {
         int sourceArrayLength = sourceArray.length;
         T[] result = (T[]) Array.newInstance(targetClass, sourceArrayLength);
         if (sourceArrayLength != 0) {
-            Iterable<Object> previousSource = null;
-            int previousSourceIndex = -1;
-            if (mappingContext != null) {
-                previousSource = mappingContext.getSource();
-                previousSourceIndex = mappingContext.getSourceIndex();
-                mappingContext.setSource(new ArrayIterable<S>(sourceArray));
-            }
-            try {
-                Mapping mapping = resolveMapping(sourceArray[0], targetClass, mappingName, mappingContext);
-                for (int i = 0; i < sourceArrayLength; i++) {
-                    S source = sourceArray[i];
-                    if (mappingContext != null) {
-                        mappingContext.setSourceIndex(i);
-                    }
-                    result[i] = map(mapping, source, targetClass, mappingName, mappingContext);
-                }
-            } finally {
-                if (mappingContext != null) {
-                    mappingContext.setSource(previousSource);
-                    mappingContext.setSourceIndex(previousSourceIndex);
-                }
+            List<T> bulkResult = mapBulk(sourceArray, targetClass, mappingName, mappingContext);
+            if (bulkResult != null) {
+                return (T[]) bulkResult.toArray(result);
             }
+            ArrayIterable<S> source = new ArrayIterable<S>(sourceArray);
+            mapEach(source.iterator(), sourceArrayLength, 0, source, targetClass, mappingName, mappingContext, true,
+                    new ArraySink<T>(result));
         }
         return result;
     }
@@ -201,35 +407,16 @@ public class HandcraftMapper extends AbstractMapper {
         assertNotNull(targetClass, "Target class cannot be null");
         assertNotNull(mappingName, "Mapping name cannot be null");
         if (!sourceCollection.isEmpty()) {
-            Iterable<Object> previousSource = null;
-            int previousSourceIndex = -1;
-            if (mappingContext != null) {
-                previousSource = mappingContext.getSource();
-                previousSourceIndex = mappingContext.getSourceIndex();
-                mappingContext.setSource(sourceCollection);
-            }
-            try {
-                Iterator<S> sourceCollectionIterator = sourceCollection.iterator();
-                S source = sourceCollectionIterator.next();
-                Mapping mapping = resolveMapping(source, targetClass, mappingName, mappingContext);
-                int i = 0;
-                if (mappingContext != null) {
-                    mappingContext.setSourceIndex(i++);
-                }
-                targetMap.put(source, map(mapping, source, targetClass, mappingName, mappingContext));
-                while (sourceCollectionIterator.hasNext()) {
-                    source = sourceCollectionIterator.next();
-                    if (mappingContext != null) {
-                        mappingContext.setSourceIndex(i++);
-                    }
-                    targetMap.put(source, map(mapping, source, targetClass, mappingName, mappingContext));
-                }
-            } finally {
-                if (mappingContext != null) {
-                    mappingContext.setSource(previousSource);
-                    mappingContext.setSourceIndex(previousSourceIndex);
+            List<T> bulkResult = mapBulk(sourceCollection, targetClass, mappingName, mappingContext);
+            if (bulkResult != null) {
+                Iterator<T> bulkResultIterator = bulkResult.iterator();
+                for (S source : sourceCollection) {
+                    targetMap.put(source, bulkResultIterator.next());
                 }
+                return targetMap;
             }
+            mapEach(sourceCollection.iterator(), sourceCollection.size(), 0, sourceCollection, targetClass,
+                    mappingName, mappingContext, true, new MapSink<S, T>(targetMap));
         }
         return targetMap;
     }
@@ -243,180 +430,1447 @@ public class HandcraftMapper extends AbstractMapper {
         assertNotNull(mappingName, "Mapping name cannot be null");
         T[] result = (T[]) Array.newInstance(targetClass, sourceCollection.size());
         if (!sourceCollection.isEmpty()) {
-            Iterable<Object> previousSource = null;
-            int previousSourceIndex = -1;
-            if (mappingContext != null) {
-                previousSource = mappingContext.getSource();
-                previousSourceIndex = mappingContext.getSourceIndex();
-                mappingContext.setSource(sourceCollection);
-            }
-            try {
-                Iterator sourceCollectionIterator = sourceCollection.iterator();
-                Object source = sourceCollectionIterator.next();
-                Mapping mapping = resolveMapping(source, targetClass, mappingName, mappingContext);
-                int i = 0;
-                if (mappingContext != null) {
-                    mappingContext.setSourceIndex(i);
-                }
-                result[i++] = map(mapping, source, targetClass, mappingName, mappingContext);
-                while (sourceCollectionIterator.hasNext()) {
-                    source = sourceCollectionIterator.next();
-                    if (mappingContext != null) {
-                        mappingContext.setSourceIndex(i);
-                    }
-                    result[i++] = map(mapping, source, targetClass, mappingName, mappingContext);
-                }
-            } finally {
-                if (mappingContext != null) {
-                    mappingContext.setSource(previousSource);
-                    mappingContext.setSourceIndex(previousSourceIndex);
-                }
+            List<T> bulkResult = mapBulk(sourceCollection, targetClass, mappingName, mappingContext);
+            if (bulkResult != null) {
+                return (T[]) bulkResult.toArray(result);
             }
+            mapEach(sourceCollection.iterator(), sourceCollection.size(), 0, sourceCollection, targetClass,
+                    mappingName, mappingContext, true, new ArraySink<T>(result));
         }
         return result;
     }
 
-    protected <S, T> Mapping resolveMapping(S source, Class<T> targetClass, String mappingName,
-                                            MappingContext mappingContext) {
-        if (mappingContext != null && mappingContext.containsKey(HINT_REUSE_MAPPING)) {
-            return loadMapping(new MappingKey(proxyNarrowingStrategy.narrow(source), targetClass, mappingName));
-        }
-        return null;
+    /**
+     * Parallel version of {@link #map(java.util.Collection, Class)}.
+     */
+    public <T> T[] mapParallel(Collection sourceCollection, Class<T> targetClass) {
+        return mapParallel(sourceCollection, targetClass, getDefaultMappingName(), getDefaultContext());
     }
 
-    @Override
-    public <T> T map(Object source, Class<T> targetClass, String mappingName, MappingContext mappingContext) {
-        if (source == null) {
-            return null;
-        }
-        assertNotNull(targetClass, "Target class cannot be null");
-        assertNotNull(mappingName, "Mapping name cannot be null");
-        MappingKey key = new MappingKey(proxyNarrowingStrategy.narrow(source), targetClass, mappingName);
-        return map(loadMapping(key), source, (T) null, mappingContext);
+    /**
+     * Parallel version of {@link #map(java.util.Collection, Class, String)}.
+     */
+    public <T> T[] mapParallel(Collection sourceCollection, Class<T> targetClass, String mappingName) {
+        return mapParallel(sourceCollection, targetClass, mappingName, getDefaultContext());
     }
 
-    @Override
-    public <T> T map(Object source, T target, String mappingName, MappingContext mappingContext) {
-        assertNotNull(source, "Source object cannot be null");
-        assertNotNull(target, "Target object cannot be null");
-        assertNotNull(mappingName, "Mapping name cannot be null");
-        MappingKey key = new MappingKey(proxyNarrowingStrategy.narrow(source), proxyNarrowingStrategy.narrow(target),
-                mappingName);
-        return map(loadMapping(key), source, target, mappingContext);
+    /**
+     * Parallel version of {@link #map(java.util.Collection, Class, MappingContext)}.
+     */
+    public <T> T[] mapParallel(Collection sourceCollection, Class<T> targetClass, MappingContext mappingContext) {
+        return mapParallel(sourceCollection, targetClass, getDefaultMappingName(), mappingContext);
     }
 
-    protected <T> T map(Mapping mapping, Object source, Class<T> targetClass, String mappingName,
-            MappingContext mappingContext) {
-        if (mapping == null) {
-            mapping = loadMapping(new MappingKey(proxyNarrowingStrategy.narrow(source), targetClass, mappingName));
+    /**
+     * Parallel version of {@link #map(java.util.Collection, Class, String, MappingContext)}.
+     * Source collection is split into {@link #getParallelism()} contiguous chunks, each one of which is mapped
+     * (using its own {@link MappingContext#fork()}) by the {@link #getParallelExecutor()} (or the calling thread).
+     * Order of the elements is preserved. {@link MappingContext#getSource()} and
+     * {@link MappingContext#getSourceIndex()} are reported in respect to the whole source collection. Changes made to
+     * the mapping context by the mapping methods are not propagated back to the given one.
+     */
+    public <T> T[] mapParallel(Collection sourceCollection, Class<T> targetClass, String mappingName,
+                               MappingContext mappingContext) {
+        assertNotNull(sourceCollection, "Source collection must never be null");
+        if (sourceCollection.size() < parallelismThreshold) {
+            return map(sourceCollection, targetClass, mappingName, mappingContext);
         }
-        return map(mapping, source, (T) null, mappingContext);
+        return mapParallel(sourceCollection.toArray(), sourceCollection, targetClass, mappingName, mappingContext);
     }
 
-    @SuppressWarnings("unchecked")
-    protected <T> T map(Mapping mapping, Object source, T target, MappingContext mappingContext) {
-        try {
-            MappingDelegate delegate = mapping.delegate;
-            if (delegate.returnsTarget) {
-                if (target != null) {
-                    throw new MappingException("'" + mapping.key + "' cannot be used for overlay mapping");
-                }
-                return (T) delegate.method.invoke(delegate.delegatee, delegate.requiresContext ?
-                        new Object[]{source, mappingContext} : new Object[]{source});
-            }
-            if (target == null) {
-                target = (T) newInstance(mapping.key.targetClass);
-            }
-            delegate.method.invoke(delegate.delegatee, delegate.requiresContext ?
-                    new Object[]{source, target, mappingContext} : new Object[]{source, target});
-            return target;
-        } catch (Exception e) {
-            Throwable throwable = e;
-            if (e instanceof InvocationTargetException) {
-                throwable = e.getCause();
-            }
-            throw new MappingException("Unable to perform \'" + mapping.key + "\' mapping", throwable);
-        }
+    /**
+     * Parallel version of {@link #map(Object[], Class)}.
+     */
+    public <S, T> T[] mapParallel(S[] sourceArray, Class<T> targetClass) {
+        return mapParallel(sourceArray, targetClass, getDefaultMappingName(), getDefaultContext());
     }
 
-    @Override
-    public boolean allowsToMap(Class sourceClass, Class targetClass, String mappingName) {
-        MappingKey key = new MappingKey(sourceClass, targetClass, mappingName);
-        return findMapping(key) != null;
+    /**
+     * Parallel version of {@link #map(Object[], Class, String)}.
+     */
+    public <S, T> T[] mapParallel(S[] sourceArray, Class<T> targetClass, String mappingName) {
+        return mapParallel(sourceArray, targetClass, mappingName, getDefaultContext());
     }
 
     /**
-     * @param mappingProvider arbitrary object with {@link Mapping}-annotated methods.
-     * @return collection of discovered mappings
-     * @throws IllegalMappingDefinitionException if any of {@link Mapping}-annotated methods isn't a valid mapping definition
-     * @throws DuplicateMappingDefinitionException if there are duplicate mapping definitions
+     * Parallel version of {@link #map(Object[], Class, MappingContext)}.
      */
-    public Collection<MappingKey> register(Object mappingProvider) {
-        Collection<MappingKey> result = new LinkedList<MappingKey>();
-        Method[] methods = mappingProvider.getClass().getDeclaredMethods();
-        for (Method method : methods) {
-            com.github.shyiko.mappify.handcraft.Mapping mapping =
-                    method.getAnnotation(com.github.shyiko.mappify.handcraft.Mapping.class);
-            if (mapping != null) {
-                result.add(register(mappingProvider, method, mapping.value()));
-            }
-        }
-        return result;
+    public <S, T> T[] mapParallel(S[] sourceArray, Class<T> targetClass, MappingContext mappingContext) {
+        return mapParallel(sourceArray, targetClass, getDefaultMappingName(), mappingContext);
     }
 
-    protected MappingKey register(Object mappingProvider, Method method, String mappingName) {
-        Class<?> returnType = method.getReturnType();
-        Class<?>[] parameterTypes = method.getParameterTypes();
-        if (!isValidMapping(returnType, parameterTypes)) {
-            throw new IllegalMappingDefinitionException(
-                    method + " is annotated with @Mapping but doesn't denote a valid mapping");
-        }
-        MappingKey key = new MappingKey(parameterTypes[0], returnType == Void.TYPE ?
-                parameterTypes[1] : returnType, mappingName);
-        MappingDelegate mappingDelegate = new MappingDelegate(mappingProvider, method);
-        assertNotAlreadyRegistered(key, mappingDelegate);
-        config.put(key, new Mapping(key, mappingDelegate));
-        return key;
+    /**
+     * Parallel version of {@link #map(Object[], Class, String, MappingContext)}.
+     * @see #mapParallel(java.util.Collection, Class, String, MappingContext)
+     */
+    public <S, T> T[] mapParallel(S[] sourceArray, Class<T> targetClass, String mappingName,
+                                  MappingContext mappingContext) {
+        assertNotNull(sourceArray, "Source array must never be null");
+        return mapParallel(sourceArray, new ArrayIterable<S>(sourceArray), targetClass, mappingName, mappingContext);
     }
 
-    protected boolean isValidMapping(Class<?> returnType, Class<?>[] parameterTypes) {
-        int upperBound = returnType == Void.TYPE ? 3 : 2,
-            numberOfParameters = parameterTypes.length;
-        return (numberOfParameters == upperBound - 1  &&
-                   !MappingContext.class.isAssignableFrom(parameterTypes[upperBound - 2])) ||
-               (numberOfParameters == upperBound &&
-                   MappingContext.class.isAssignableFrom(parameterTypes[upperBound - 1]));
+    /**
+     * Parallel version of {@link #mapToArrayList(java.util.Collection, Class)}.
+     */
+    public <T> ArrayList<T> mapToArrayListParallel(Collection sourceCollection, Class<T> targetClass) {
+        return mapToArrayListParallel(sourceCollection, targetClass, getDefaultMappingName(), getDefaultContext());
     }
 
-    protected void assertNotAlreadyRegistered(MappingKey key, MappingDelegate mappingDelegate) {
-        Mapping previousMapping = config.get(key);
-        if (previousMapping != null) {
-            throw new DuplicateMappingDefinitionException("Found duplicate mapping definitions: '" +
-                    previousMapping.delegate + "' and '" + mappingDelegate + "'");
-        }
+    /**
+     * Parallel version of {@link #mapToArrayList(java.util.Collection, Class, String)}.
+     */
+    public <T> ArrayList<T> mapToArrayListParallel(Collection sourceCollection, Class<T> targetClass,
+                                                   String mappingName) {
+        return mapToArrayListParallel(sourceCollection, targetClass, mappingName, getDefaultContext());
+    }
+
+    /**
+     * Parallel version of {@link #mapToArrayList(java.util.Collection, Class, MappingContext)}.
+     */
+    public <T> ArrayList<T> mapToArrayListParallel(Collection sourceCollection, Class<T> targetClass,
+                                                   MappingContext mappingContext) {
+        return mapToArrayListParallel(sourceCollection, targetClass, getDefaultMappingName(), mappingContext);
+    }
+
+    /**
+     * Parallel version of {@link #mapToArrayList(java.util.Collection, Class, String, MappingContext)}.
+     * @see #mapParallel(java.util.Collection, Class, String, MappingContext)
+     */
+    public <T> ArrayList<T> mapToArrayListParallel(Collection sourceCollection, Class<T> targetClass,
+                                                   String mappingName, MappingContext mappingContext) {
+        return new ArrayList<T>(Arrays.asList(mapParallel(sourceCollection, targetClass, mappingName,
+                mappingContext)));
+    }
+
+    /**
+     * Parallel version of {@link #mapToArrayList(Object[], Class)}.
+     */
+    public <S, T> ArrayList<T> mapToArrayListParallel(S[] sourceArray, Class<T> targetClass) {
+        return mapToArrayListParallel(sourceArray, targetClass, getDefaultMappingName(), getDefaultContext());
+    }
+
+    /**
+     * Parallel version of {@link #mapToArrayList(Object[], Class, String)}.
+     */
+    public <S, T> ArrayList<T> mapToArrayListParallel(S[] sourceArray, Class<T> targetClass, String mappingName) {
+        return mapToArrayListParallel(sourceArray, targetClass, mappingName, getDefaultContext());
+    }
+
+    /**
+     * Parallel version of {@link #mapToArrayList(Object[], Class, MappingContext)}.
+     */
+    public <S, T> ArrayList<T> mapToArrayListParallel(S[] sourceArray, Class<T> targetClass,
+                                                      MappingContext mappingContext) {
+        return mapToArrayListParallel(sourceArray, targetClass, getDefaultMappingName(), mappingContext);
+    }
+
+    /**
+     * Parallel version of {@link #mapToArrayList(Object[], Class, String, MappingContext)}.
+     * @see #mapParallel(java.util.Collection, Class, String, MappingContext)
+     */
+    public <S, T> ArrayList<T> mapToArrayListParallel(S[] sourceArray, Class<T> targetClass, String mappingName,
+                                                      MappingContext mappingContext) {
+        return new ArrayList<T>(Arrays.asList(mapParallel(sourceArray, targetClass, mappingName, mappingContext)));
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <T> T[] mapParallel(Object[] sourceArray, Iterable source, Class<T> targetClass, String mappingName,
+                                  MappingContext mappingContext) {
+        assertNotNull(targetClass, "Target class cannot be null");
+        assertNotNull(mappingName, "Mapping name cannot be null");
+        int sourceArrayLength = sourceArray.length;
+        int numberOfChunks = Math.min(parallelism, sourceArrayLength);
+        if (sourceArrayLength < parallelismThreshold || numberOfChunks < 2) {
+            return map(sourceArray, targetClass, mappingName, mappingContext);
+        }
+        T[] result = (T[]) Array.newInstance(targetClass, sourceArrayLength);
+        List<T> bulkResult = mapBulk(sourceArray, targetClass, mappingName, mappingContext);
+        if (bulkResult != null) {
+            return (T[]) bulkResult.toArray(result);
+        }
+        if (mappingContext != null && mappingContext.containsKey(HINT_MEMOIZE_BY_IDENTITY)) {
+            getIdentityMemo(mappingContext); // so that it's shared by all the forks
+        }
+        ChunkMappingTaskFactory<T> chunkFactory = new ChunkMappingTaskFactory<T>(sourceArray, source, result,
+                targetClass, mappingName, mappingContext);
+        MappingTracer mappingTracer = enterBulk(sourceArray[0], targetClass, mappingName);
+        try {
+            ParallelMappingSupport.mapInChunks(getParallelExecutor(), sourceArrayLength, numberOfChunks,
+                    chunkFactory);
+        } finally {
+            if (mappingTracer != null) {
+                mappingTracer.exit(sourceArrayLength, null);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @see #mapLazily(java.util.List, Class, String, MappingContext, boolean)
+     */
+    public <T> List<T> mapLazily(List sourceList, Class<T> targetClass) {
+        return mapLazily(sourceList, targetClass, getDefaultMappingName(), getDefaultContext(), false);
+    }
+
+    /**
+     * @see #mapLazily(java.util.List, Class, String, MappingContext, boolean)
+     */
+    public <T> List<T> mapLazily(List sourceList, Class<T> targetClass, String mappingName) {
+        return mapLazily(sourceList, targetClass, mappingName, getDefaultContext(), false);
+    }
+
+    /**
+     * @see #mapLazily(java.util.List, Class, String, MappingContext, boolean)
+     */
+    public <T> List<T> mapLazily(List sourceList, Class<T> targetClass, MappingContext mappingContext) {
+        return mapLazily(sourceList, targetClass, getDefaultMappingName(), mappingContext, false);
+    }
+
+    /**
+     * @see #mapLazily(java.util.List, Class, String, MappingContext, boolean)
+     */
+    public <T> List<T> mapLazily(List sourceList, Class<T> targetClass, String mappingName,
+                                 MappingContext mappingContext) {
+        return mapLazily(sourceList, targetClass, mappingName, mappingContext, false);
+    }
+
+    /**
+     * Lazy version of {@link #map(java.util.Collection, Class, java.util.Collection, String, MappingContext)}.
+     * Returned list is a read-only view over the source list, which maps element (into the object of target class)
+     * only when it's accessed. Mapping is resolved upon first access and then reused for each element of
+     * the same runtime class. Returned list is not thread-safe.
+     * @param sourceList source list
+     * @param targetClass target class
+     * @param mappingName mapping name
+     * @param mappingContext mapping context
+     * @param memoize true if each element should be mapped at most once (subsequent accesses return the same
+     * object), false if element is to be mapped on each access
+     * @param <T> return type
+     * @return target list view
+     */
+    public <T> List<T> mapLazily(List sourceList, Class<T> targetClass, String mappingName,
+                                 MappingContext mappingContext, boolean memoize) {
+        assertNotNull(sourceList, "Source list must never be null");
+        assertNotNull(targetClass, "Target class cannot be null");
+        assertNotNull(mappingName, "Mapping name cannot be null");
+        return new LazyMappedList<T>(sourceList,
+                new LazyMapping<T>(sourceList, targetClass, mappingName, mappingContext), memoize);
+    }
+
+    /**
+     * @see #mapLazily(Iterable, Class, String, MappingContext, boolean)
+     */
+    public <T> Iterable<T> mapLazily(Iterable sourceIterable, Class<T> targetClass) {
+        return mapLazily(sourceIterable, targetClass, getDefaultMappingName(), getDefaultContext(), false);
+    }
+
+    /**
+     * @see #mapLazily(Iterable, Class, String, MappingContext, boolean)
+     */
+    public <T> Iterable<T> mapLazily(Iterable sourceIterable, Class<T> targetClass, String mappingName) {
+        return mapLazily(sourceIterable, targetClass, mappingName, getDefaultContext(), false);
+    }
+
+    /**
+     * @see #mapLazily(Iterable, Class, String, MappingContext, boolean)
+     */
+    public <T> Iterable<T> mapLazily(Iterable sourceIterable, Class<T> targetClass, MappingContext mappingContext) {
+        return mapLazily(sourceIterable, targetClass, getDefaultMappingName(), mappingContext, false);
+    }
+
+    /**
+     * @see #mapLazily(Iterable, Class, String, MappingContext, boolean)
+     */
+    public <T> Iterable<T> mapLazily(Iterable sourceIterable, Class<T> targetClass, String mappingName,
+                                     MappingContext mappingContext) {
+        return mapLazily(sourceIterable, targetClass, mappingName, mappingContext, false);
+    }
+
+    /**
+     * Same as {@link #mapLazily(java.util.List, Class, String, MappingContext, boolean)} but for iterables
+     * (elements are mapped as the iteration goes). Memoized iterable traverses source only once, no matter how many
+     * times it's iterated over.
+     */
+    public <T> Iterable<T> mapLazily(Iterable sourceIterable, Class<T> targetClass, String mappingName,
+                                     MappingContext mappingContext, boolean memoize) {
+        assertNotNull(sourceIterable, "Source iterable must never be null");
+        assertNotNull(targetClass, "Target class cannot be null");
+        assertNotNull(mappingName, "Mapping name cannot be null");
+        return new LazyMappedIterable<T>(sourceIterable,
+                new LazyMapping<T>(sourceIterable, targetClass, mappingName, mappingContext), memoize);
+    }
+
+    /**
+     * @see #mapToLongArray(java.util.Collection, String, MappingContext)
+     */
+    public long[] mapToLongArray(Collection sourceCollection) {
+        return mapToLongArray(sourceCollection, getDefaultMappingName(), getDefaultContext());
+    }
+
+    /**
+     * @see #mapToLongArray(java.util.Collection, String, MappingContext)
+     */
+    public long[] mapToLongArray(Collection sourceCollection, String mappingName) {
+        return mapToLongArray(sourceCollection, mappingName, getDefaultContext());
+    }
+
+    /**
+     * @see #mapToLongArray(java.util.Collection, String, MappingContext)
+     */
+    public long[] mapToLongArray(Collection sourceCollection, MappingContext mappingContext) {
+        return mapToLongArray(sourceCollection, getDefaultMappingName(), mappingContext);
+    }
+
+    /**
+     * Projects each element of the source collection using long-returning mapping (e.g.
+     * {@code @Mapping public long idOf(Order order)}). Unlike {@code map(sourceCollection, long.class)}, results are
+     * neither boxed nor collected into the intermediate array of wrappers.
+     * @param sourceCollection source collection (must not contain nulls)
+     * @param mappingName mapping name
+     * @param mappingContext mapping context
+     * @return array of projections (in the order of the source collection)
+     */
+    public long[] mapToLongArray(Collection sourceCollection, String mappingName, MappingContext mappingContext) {
+        return (long[]) project(sourceCollection, Long.TYPE, mappingName, mappingContext).getResult();
+    }
+
+    /**
+     * @see #mapToIntArray(java.util.Collection, String, MappingContext)
+     */
+    public int[] mapToIntArray(Collection sourceCollection) {
+        return mapToIntArray(sourceCollection, getDefaultMappingName(), getDefaultContext());
+    }
+
+    /**
+     * @see #mapToIntArray(java.util.Collection, String, MappingContext)
+     */
+    public int[] mapToIntArray(Collection sourceCollection, String mappingName) {
+        return mapToIntArray(sourceCollection, mappingName, getDefaultContext());
+    }
+
+    /**
+     * @see #mapToIntArray(java.util.Collection, String, MappingContext)
+     */
+    public int[] mapToIntArray(Collection sourceCollection, MappingContext mappingContext) {
+        return mapToIntArray(sourceCollection, getDefaultMappingName(), mappingContext);
+    }
+
+    /**
+     * int counterpart of {@link #mapToLongArray(java.util.Collection, String, MappingContext)}.
+     */
+    public int[] mapToIntArray(Collection sourceCollection, String mappingName, MappingContext mappingContext) {
+        return (int[]) project(sourceCollection, Integer.TYPE, mappingName, mappingContext).getResult();
+    }
+
+    /**
+     * @see #mapToDoubleArray(java.util.Collection, String, MappingContext)
+     */
+    public double[] mapToDoubleArray(Collection sourceCollection) {
+        return mapToDoubleArray(sourceCollection, getDefaultMappingName(), getDefaultContext());
+    }
+
+    /**
+     * @see #mapToDoubleArray(java.util.Collection, String, MappingContext)
+     */
+    public double[] mapToDoubleArray(Collection sourceCollection, String mappingName) {
+        return mapToDoubleArray(sourceCollection, mappingName, getDefaultContext());
+    }
+
+    /**
+     * @see #mapToDoubleArray(java.util.Collection, String, MappingContext)
+     */
+    public double[] mapToDoubleArray(Collection sourceCollection, MappingContext mappingContext) {
+        return mapToDoubleArray(sourceCollection, getDefaultMappingName(), mappingContext);
+    }
+
+    /**
+     * double counterpart of {@link #mapToLongArray(java.util.Collection, String, MappingContext)}.
+     */
+    public double[] mapToDoubleArray(Collection sourceCollection, String mappingName, MappingContext mappingContext) {
+        return (double[]) project(sourceCollection, Double.TYPE, mappingName, mappingContext).getResult();
+    }
+
+    /**
+     * @param targetClass long.class, int.class or double.class
+     */
+    private <P> PrimitiveProjection project(Collection sourceCollection, Class<P> targetClass, String mappingName,
+                                            MappingContext mappingContext) {
+        assertNotNull(sourceCollection, "Source collection must never be null");
+        assertNotNull(mappingName, "Mapping name cannot be null");
+        final PrimitiveProjection projection = new PrimitiveProjection(targetClass, sourceCollection.size());
+        if (!sourceCollection.isEmpty()) {
+            mapEach(sourceCollection.iterator(), sourceCollection.size(), 0, sourceCollection, targetClass,
+                    mappingName, mappingContext, true, new ElementSink<P>() {
+
+                @Override
+                protected void map(int index, Object source, Mapping mapping, Class<P> targetClass,
+                                   String mappingName, MappingContext mappingContext) {
+                    if (source == null) {
+                        throw new MappingException("Unable to map null to " + targetClass);
+                    }
+                    project(mapping, source, projection, index, mappingContext);
+                }
+
+                @Override
+                protected void accept(int index, Object source, P target) {
+                    throw new UnsupportedOperationException();
+                }
+            });
+        }
+        return projection;
+    }
+
+    /**
+     * Primitive counterpart of {@link #map(Mapping, Object, Object, MappingContext)}, which stores result of the
+     * mapping at the given index of the result array.
+     */
+    private void project(Mapping mapping, Object source, PrimitiveProjection projection, int index,
+                         MappingContext mappingContext) {
+        MappingListener mappingListener = this.mappingListener;
+        MappingTracer mappingTracer = this.mappingTracer;
+        if (mappingListener == null && mappingTracer == null) {
+            invoke(mapping, source, projection, index, mappingContext);
+            return;
+        }
+        if (mappingTracer != null) {
+            mappingTracer.enter(mapping.key, mapping.delegate.description, false);
+        }
+        long startTime = System.nanoTime();
+        try {
+            invoke(mapping, source, projection, index, mappingContext);
+        } catch (RuntimeException e) {
+            afterMapping(mapping, startTime, e, mappingListener, mappingTracer);
+            throw e;
+        } catch (Error e) {
+            afterMapping(mapping, startTime, e, mappingListener, mappingTracer);
+            throw e;
+        }
+        afterMapping(mapping, startTime, null, mappingListener, mappingTracer);
+    }
+
+    private void invoke(Mapping mapping, Object source, PrimitiveProjection projection, int index,
+                        MappingContext mappingContext) {
+        MappingDelegate delegate = mapping.delegate;
+        if (!delegate.returnsTarget) {
+            throw new MappingException("'" + mapping.key + "' cannot be used for projection");
+        }
+        try {
+            projection.project(delegate.invoker, source, index, mappingContext);
+        } catch (Exception e) {
+            Throwable throwable = e;
+            if (e instanceof InvocationTargetException) {
+                throwable = e.getCause();
+            }
+            throw new MappingException("Unable to perform \'" + mapping.key + "\' mapping", throwable);
+        }
+    }
+
+    /**
+     * @see #mapBulk(java.util.Collection, Class, String, MappingContext)
+     */
+    protected <T> List<T> mapBulk(Object[] sourceArray, Class<T> targetClass, String mappingName,
+                                  MappingContext mappingContext) {
+        if (bulkConfig.isEmpty()) {
+            return null;
+        }
+        return mapBulk(Arrays.asList(sourceArray), targetClass, mappingName, mappingContext);
+    }
+
+    /**
+     * Bulk mapping is used only if each and every element of the source collection resolves to it (see
+     * {@link #resolveBulkMapping(Class, Class, String)}). {@link MappingContext#getSource()} is set to the source
+     * collection (and {@link MappingContext#getSourceIndex()} to 0, i.e. the index of the first element of the list
+     * bulk mapping is given) for the duration of the call, the same way it's done for the per-element mappings.
+     * @return targets produced by the bulk mapping (in the order of the sources), null if there is no bulk mapping
+     * applicable to each and every element of the source collection
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> List<T> mapBulk(Collection<?> sourceCollection, Class<T> targetClass, String mappingName,
+                                  MappingContext mappingContext) {
+        if (bulkConfig.isEmpty()) {
+            return null;
+        }
+        Mapping mapping = null;
+        Class previousSourceClass = null;
+        for (Object source : sourceCollection) {
+            if (source == null) {
+                return null;
+            }
+            Class sourceClass = proxyNarrowingStrategy.narrow(source);
+            if (sourceClass != previousSourceClass) {
+                Mapping sourceMapping = resolveBulkMapping(sourceClass, targetClass, mappingName);
+                if (sourceMapping == null || (mapping != null && sourceMapping != mapping)) {
+                    return null; // elements are going to be mapped one by one
+                }
+                mapping = sourceMapping;
+                previousSourceClass = sourceClass;
+            }
+        }
+        List<?> sourceList = sourceCollection instanceof List ?
+                (List<?>) sourceCollection : new ArrayList<Object>(sourceCollection);
+        Iterable<Object> previousSource = null;
+        int previousSourceIndex = -1;
+        if (mappingContext != null) {
+            previousSource = mappingContext.getSource();
+            previousSourceIndex = mappingContext.getSourceIndex();
+            mappingContext.setSource(sourceCollection);
+            mappingContext.setSourceIndex(0);
+        }
+        MappingTracer mappingTracer = enterBulk(sourceList.get(0), targetClass, mappingName);
+        List result;
+        try {
+            result = map(mapping, sourceList, (List) null, mappingContext);
+        } finally {
+            if (mappingContext != null) {
+                mappingContext.setSource(previousSource);
+                mappingContext.setSourceIndex(previousSourceIndex);
+            }
+            if (mappingTracer != null) {
+                mappingTracer.exit(sourceList.size(), null);
+            }
+        }
+        if (result == null || result.size() != sourceList.size()) {
+            throw new MappingException("'" + mapping.key + "' bulk mapping produced " +
+                    (result == null ? "null" : result.size() + " target(s)") + " for " + sourceList.size() +
+                    " source(s)");
+        }
+        return result;
+    }
+
+    /**
+     * @return bulk mapping applicable to the elements of the given class, null if there is none or if the
+     * per-element mapping resolved for the class is more specific (i.e. registered for the subclass of the bulk
+     * mapping's source class), in which case elements of that class are to be mapped one by one
+     */
+    private Mapping resolveBulkMapping(Class sourceClass, Class targetClass, String mappingName) {
+        MappingResolutionCache<Mapping> bulkResolutions = this.bulkResolutions;
+        Mapping mapping = bulkResolutions.get(sourceClass, targetClass, mappingName);
+        if (mapping == null) {
+            MappingKey key = new MappingKey(sourceClass, targetClass, mappingName);
+            mapping = findBulkMapping(key);
+            if (mapping != null) {
+                Class<?> bulkSourceClass = mapping.key.sourceClass;
+                Mapping elementMapping = findMapping(key);
+                if (elementMapping != null && elementMapping.key.sourceClass != bulkSourceClass &&
+                        bulkSourceClass.isAssignableFrom(elementMapping.key.sourceClass)) {
+                    mapping = null;
+                }
+            }
+            if (mapping == null) {
+                mapping = NO_MAPPING;
+            }
+            bulkResolutions.put(sourceClass, targetClass, mappingName, mapping);
+        }
+        return mapping == NO_MAPPING ? null : mapping;
+    }
+
+    @Override
+    public <T> T map(Object source, Class<T> targetClass) {
+        return map(source, targetClass, getDefaultMappingName());
+    }
+
+    @Override
+    public <T> T map(Object source, Class<T> targetClass, String mappingName) {
+        if (source == null) {
+            return null;
+        }
+        assertNotNull(targetClass, "Target class cannot be null");
+        assertNotNull(mappingName, "Mapping name cannot be null");
+        Mapping mapping = loadMapping(proxyNarrowingStrategy.narrow(source), targetClass, mappingName);
+        return mapWithDefaultContext(mapping, source, (T) null);
+    }
+
+    @Override
+    public <T> T map(Object source, T target) {
+        return map(source, target, getDefaultMappingName());
+    }
+
+    @Override
+    public <T> T map(Object source, T target, String mappingName) {
+        assertNotNull(source, "Source object cannot be null");
+        assertNotNull(target, "Target object cannot be null");
+        assertNotNull(mappingName, "Mapping name cannot be null");
+        Mapping mapping = loadMapping(proxyNarrowingStrategy.narrow(source), proxyNarrowingStrategy.narrow(target),
+                mappingName, true);
+        return mapWithDefaultContext(mapping, source, target);
+    }
+
+    @Override
+    public <T> T map(Object source, Class<T> targetClass, String mappingName, MappingContext mappingContext) {
+        if (source == null) {
+            return null;
+        }
+        assertNotNull(targetClass, "Target class cannot be null");
+        assertNotNull(mappingName, "Mapping name cannot be null");
+        Mapping mapping = loadMapping(proxyNarrowingStrategy.narrow(source), targetClass, mappingName);
+        return map(mapping, source, (T) null, mappingContext);
+    }
+
+    @Override
+    public <T> T map(Object source, T target, String mappingName, MappingContext mappingContext) {
+        assertNotNull(source, "Source object cannot be null");
+        assertNotNull(target, "Target object cannot be null");
+        assertNotNull(mappingName, "Mapping name cannot be null");
+        Mapping mapping = loadMapping(proxyNarrowingStrategy.narrow(source), proxyNarrowingStrategy.narrow(target),
+                mappingName, true);
+        return map(mapping, source, target, mappingContext);
+    }
+
+    protected <T> T map(Mapping mapping, Object source, Class<T> targetClass, String mappingName,
+            MappingContext mappingContext) {
+        if (mapping == null) {
+            mapping = loadMapping(proxyNarrowingStrategy.narrow(source), targetClass, mappingName);
+        }
+        return map(mapping, source, (T) null, mappingContext);
+    }
+
+    /**
+     * Same as {@link #map(Mapping, Object, Object, MappingContext)} except that default context is provided only
+     * if mapping method actually accepts one (or {@link #getDefaultContext()} is overridden).
+     */
+    protected <T> T mapWithDefaultContext(Mapping mapping, Object source, T target) {
+        if (!mapping.delegate.requiresContext && !defaultContextOverridden) {
+            return map(mapping, source, target, null);
+        }
+        MappingContext mappingContext = acquireDefaultContext();
+        try {
+            return map(mapping, source, target, mappingContext);
+        } finally {
+            releaseDefaultContext(mappingContext);
+        }
+    }
+
+    /**
+     * @return {@link #getDefaultContext()} or, if {@link #isReuseDefaultContext()} (and {@link #getDefaultContext()}
+     * is not overridden), per-thread context (unless it's already in use, e.g. by the outer mapping). Must be
+     * followed by {@link #releaseDefaultContext(MappingContext)}
+     */
+    protected MappingContext acquireDefaultContext() {
+        if (!reuseDefaultContext || !enforceMappingContext || defaultContextOverridden) {
+            return getDefaultContext();
+        }
+        ReusableMappingContext mappingContext = reusableContext.get();
+        if (mappingContext == null) {
+            reusableContext.set(mappingContext = new ReusableMappingContext());
+        }
+        if (mappingContext.inUse) {
+            return getDefaultContext();
+        }
+        mappingContext.inUse = true;
+        return mappingContext;
+    }
+
+    private static boolean overridesDefaultContext(Class<?> type) {
+        for (Class<?> c = type; c != HandcraftMapper.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("getDefaultContext");
+                return true;
+            } catch (NoSuchMethodException e) {
+                // not declared by this class
+            }
+        }
+        return false;
+    }
+
+    protected void releaseDefaultContext(MappingContext mappingContext) {
+        if (mappingContext instanceof ReusableMappingContext) {
+            ReusableMappingContext reusableMappingContext = (ReusableMappingContext) mappingContext;
+            reusableMappingContext.clear();
+            reusableMappingContext.setSource(null);
+            reusableMappingContext.setSourceIndex(-1);
+            reusableMappingContext.setAttachment(null);
+            reusableMappingContext.inUse = false;
+        }
+    }
+
+    protected <T> T map(Mapping mapping, Object source, T target, MappingContext mappingContext) {
+        MappingListener mappingListener = this.mappingListener;
+        MappingTracer mappingTracer = this.mappingTracer;
+        if (mappingListener == null && mappingTracer == null) {
+            return doMap(mapping, source, target, mappingContext);
+        }
+        if (mappingTracer != null) {
+            mappingTracer.enter(mapping.key, mapping.delegate.description, false);
+        }
+        long startTime = System.nanoTime();
+        T result;
+        try {
+            result = doMap(mapping, source, target, mappingContext);
+        } catch (RuntimeException e) {
+            afterMapping(mapping, startTime, e, mappingListener, mappingTracer);
+            throw e;
+        } catch (Error e) {
+            afterMapping(mapping, startTime, e, mappingListener, mappingTracer);
+            throw e;
+        }
+        afterMapping(mapping, startTime, null, mappingListener, mappingTracer);
+        return result;
+    }
+
+    private void afterMapping(Mapping mapping, long startTime, Throwable failure, MappingListener mappingListener,
+                              MappingTracer mappingTracer) {
+        if (mappingTracer != null) {
+            mappingTracer.exit(0, failure);
+        }
+        if (mappingListener != null) {
+            mappingListener.onMapping(mapping.key, System.nanoTime() - startTime, failure);
+        }
+    }
+
+    /**
+     * @return tracer the bulk call was reported to, null if tracing is disabled. Must be followed by
+     * {@link MappingTracer#exit(long, Throwable)}
+     */
+    private MappingTracer enterBulk(Object source, Class targetClass, String mappingName) {
+        MappingTracer mappingTracer = this.mappingTracer;
+        if (mappingTracer != null) {
+            mappingTracer.enter(new MappingKey(source == null ? Object.class : proxyNarrowingStrategy.narrow(source),
+                    targetClass, mappingName), null, true);
+        }
+        return mappingTracer;
+    }
+
+    /**
+     * Map each of the size elements provided by the iterator (resolving mappings through the per-call
+     * {@link InlineMappingCache}), handing targets over to the sink. {@link MappingContext#getSource()} and
+     * {@link MappingContext#getSourceIndex()} (counted from fromIndex) are set for the duration of the call (and
+     * restored afterwards).
+     * @param source source reported by the mapping context
+     * @param traced true if call is to be reported to the {@link MappingTracer} (as a whole)
+     */
+    private <T> void mapEach(Iterator sourceIterator, int size, int fromIndex, Iterable source, Class<T> targetClass,
+                             String mappingName, MappingContext mappingContext, boolean traced, ElementSink<T> sink) {
+        Iterable<Object> previousSource = null;
+        int previousSourceIndex = -1;
+        if (mappingContext != null) {
+            previousSource = mappingContext.getSource();
+            previousSourceIndex = mappingContext.getSourceIndex();
+            mappingContext.setSource(source);
+        }
+        MappingTracer mappingTracer = null;
+        try {
+            Object element = sourceIterator.next();
+            if (traced) {
+                mappingTracer = enterBulk(element, targetClass, mappingName);
+            }
+            InlineMappingCache inlineCache = new InlineMappingCache(targetClass, mappingName);
+            for (int i = fromIndex; ; i++) {
+                if (mappingContext != null) {
+                    mappingContext.setSourceIndex(i);
+                }
+                sink.map(i, element, inlineCache.get(element), targetClass, mappingName, mappingContext);
+                if (!sourceIterator.hasNext()) {
+                    break;
+                }
+                element = sourceIterator.next();
+            }
+        } finally {
+            if (mappingContext != null) {
+                mappingContext.setSource(previousSource);
+                mappingContext.setSourceIndex(previousSourceIndex);
+            }
+            if (mappingTracer != null) {
+                mappingTracer.exit(size, null);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T doMap(Mapping mapping, Object source, T target, MappingContext mappingContext) {
+        MappingDelegate delegate = mapping.delegate;
+        if (target != null || !delegate.cacheable) {
+            return invoke(mapping, source, target, mappingContext);
+        }
+        SourceVersionExtractor versionExtractor = delegate.versionExtractor;
+        ResultCacheKey cacheKey = new ResultCacheKey(mapping, source,
+                versionExtractor == null ? null : versionExtractor.getVersion(source));
+        MappingResultCache resultCache = this.resultCache;
+        T result = (T) resultCache.get(cacheKey);
+        if (result == null) {
+            result = invoke(mapping, source, (T) null, mappingContext);
+            if (result != null) {
+                resultCache.put(cacheKey, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Instantiate target using the {@link Instantiator} (registered or created by the
+     * {@link #getInstantiatorStrategy()}) of the given class (as opposed to {@link Class#newInstance()}).
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    protected <T> T newInstance(Class<T> targetClass) {
+        Instantiator<T> instantiator = registeredInstantiators.get(targetClass);
+        if (instantiator == null) {
+            instantiator = getCachedInstantiator(targetClass);
+            if (instantiator == null) {
+                // re-checked under the lock so that concurrent requests don't end up generating a class each
+                int lockIndex = System.identityHashCode(targetClass) & (instantiatorLocks.length - 1);
+                synchronized (instantiatorLocks[lockIndex]) {
+                    instantiator = getCachedInstantiator(targetClass);
+                    if (instantiator == null) {
+                        InstantiatorStrategy strategy = instantiatorStrategy;
+                        instantiator = strategy.getInstantiator(targetClass);
+                        synchronized (instantiatorLocks) {
+                            if (strategy == instantiatorStrategy) {
+                                instantiators.put(targetClass, isLoadedBy(targetClass, getClass().getClassLoader()) ?
+                                        instantiator : new SoftReference<Instantiator<T>>(instantiator));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        try {
+            return instantiator.newInstance();
+        } catch (Exception e) {
+            Throwable throwable = e;
+            if (e instanceof InvocationTargetException) {
+                throwable = e.getCause();
+            }
+            throw new MappingException("Unable to create instance of " + targetClass, throwable);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Instantiator<T> getCachedInstantiator(Class<T> targetClass) {
+        Object value = instantiators.get(targetClass);
+        if (value instanceof SoftReference) {
+            value = ((SoftReference) value).get();
+        }
+        return (Instantiator<T>) value;
+    }
+
+    private static Object[] newLocks(int numberOfLocks) {
+        Object[] result = new Object[numberOfLocks];
+        for (int i = 0; i < numberOfLocks; i++) {
+            result[i] = new Object();
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T invoke(Mapping mapping, Object source, T target, MappingContext mappingContext) {
+        IdentityMemo memo = null;
+        if (target == null && mappingContext != null && mappingContext.containsKey(HINT_MEMOIZE_BY_IDENTITY)) {
+            memo = getIdentityMemo(mappingContext);
+            Object memoizedTarget = memo.get(source, mapping.key);
+            if (memoizedTarget != null) {
+                return (T) memoizedTarget;
+            }
+        }
+        try {
+            MappingDelegate delegate = mapping.delegate;
+            if (delegate.returnsTarget) {
+                if (target != null) {
+                    throw new MappingException("'" + mapping.key + "' cannot be used for overlay mapping");
+                }
+                target = (T) delegate.invoker.invoke(source, null, mappingContext);
+                if (memo != null && target != null) {
+                    memo.put(source, mapping.key, target);
+                }
+                return target;
+            }
+            if (target == null) {
+                target = (T) newInstance(mapping.key.targetClass);
+                if (memo != null) {
+                    memo.put(source, mapping.key, target); // so that cyclic references resolve to in-progress target
+                }
+            }
+            delegate.invoker.invoke(source, target, mappingContext);
+            return target;
+        } catch (Exception e) {
+            if (memo != null) {
+                memo.remove(source, mapping.key);
+            }
+            Throwable throwable = e;
+            if (e instanceof InvocationTargetException) {
+                throwable = e.getCause();
+            }
+            throw new MappingException("Unable to perform \'" + mapping.key + "\' mapping", throwable);
+        }
+    }
+
+    /**
+     * @return memo attached to the given context (created if there is none yet)
+     */
+    private IdentityMemo getIdentityMemo(MappingContext mappingContext) {
+        Object attachment = mappingContext.getAttachment();
+        if (attachment == null) {
+            // context might be shared between threads (e.g. ConcurrentMappingContext)
+            synchronized (mappingContext) {
+                attachment = mappingContext.getAttachment();
+                if (attachment == null) {
+                    mappingContext.setAttachment(attachment = new IdentityMemo());
+                }
+            }
+        }
+        if (!(attachment instanceof IdentityMemo)) {
+            throw new MappingException("Mapping context is already attached to " + attachment);
+        }
+        return (IdentityMemo) attachment;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Returned instance invokes mapping resolved for the sourceClass directly (without proxy narrowing and
+     * lookup), which means that mappings registered after this call are not taken into account.
+     */
+    @Override
+    public <S, T> BoundMapping<S, T> bind(Class<S> sourceClass, Class<T> targetClass, String mappingName) {
+        assertNotNull(sourceClass, "Source class cannot be null");
+        assertNotNull(targetClass, "Target class cannot be null");
+        assertNotNull(mappingName, "Mapping name cannot be null");
+        return new HandcraftBoundMapping<S, T>(sourceClass, targetClass, mappingName,
+                loadMapping(sourceClass, targetClass, mappingName));
+    }
+
+    @Override
+    public boolean allowsToMap(Class sourceClass, Class targetClass, String mappingName) {
+        MappingKey key = new MappingKey(sourceClass, targetClass, mappingName);
+        return findMapping(key) != null;
+    }
+
+    /**
+     * @param mappingProvider arbitrary object with {@link Mapping}-annotated methods. If there is a
+     * {@link MappingRegistrar} generated for the provider class, it's used instead of the reflection
+     * @return collection of discovered mappings
+     * @throws IllegalMappingDefinitionException if any of {@link Mapping}-annotated methods isn't a valid mapping definition
+     * @throws DuplicateMappingDefinitionException if there are duplicate mapping definitions
+     */
+    public Collection<MappingKey> register(Object mappingProvider) {
+        MappingRegistrar mappingRegistrar = findMappingRegistrar(mappingProvider.getClass());
+        if (mappingRegistrar != null) {
+            return mappingRegistrar.register(this, mappingProvider);
+        }
+        Collection<MappingKey> result = new LinkedList<MappingKey>();
+        Method[] methods = mappingProvider.getClass().getDeclaredMethods();
+        for (Method method : methods) {
+            com.github.shyiko.mappify.handcraft.Mapping mapping =
+                    method.getAnnotation(com.github.shyiko.mappify.handcraft.Mapping.class);
+            if (mapping != null) {
+                if (mapping.cacheable() && mapping.bulk()) {
+                    throw new IllegalMappingDefinitionException(
+                            method + " is a bulk mapping and so cannot be cacheable");
+                }
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                if (mapping.cacheable() && parameterTypes.length != 0 &&
+                        MappingContext.class.isAssignableFrom(parameterTypes[parameterTypes.length - 1])) {
+                    throw new IllegalMappingDefinitionException(
+                            method + " accepts MappingContext and so cannot be cacheable");
+                }
+                MappingKey key = mapping.bulk() ? registerBulk(mappingProvider, method, mapping.value()) :
+                        register(mappingProvider, method, mapping.value());
+                if (mapping.cacheable()) {
+                    enableResultCaching(key);
+                }
+                result.add(key);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Register multiple mapping providers at once.
+     * @param mappingProviders mapping providers
+     * @return collection of discovered mappings (of all the providers)
+     * @see #register(Object)
+     */
+    public Collection<MappingKey> registerAll(Iterable<?> mappingProviders) {
+        Collection<MappingKey> result = new ArrayList<MappingKey>();
+        for (Object mappingProvider : mappingProviders) {
+            result.addAll(register(mappingProvider));
+        }
+        return result;
+    }
+
+    /**
+     * Register factory of the given target class (e.g. the one relying on a builder, constructor with arguments or
+     * Objenesis), which is going to be used instead of the {@link #getInstantiatorStrategy()} for all the
+     * void-returning mappings to the class.
+     * @param targetClass target class
+     * @param instantiator instantiator of the target class
+     */
+    public <T> void registerInstantiator(Class<T> targetClass, Instantiator<? extends T> instantiator) {
+        assertNotNull(targetClass, "Target class cannot be null");
+        assertNotNull(instantiator, "Instantiator cannot be null");
+        registeredInstantiators.put(targetClass, instantiator);
+    }
+
+    /**
+     * Same as {@link #enableResultCaching(MappingKey, SourceVersionExtractor)} with no version extractor.
+     */
+    public void enableResultCaching(MappingKey key) {
+        enableResultCaching(key, null);
+    }
+
+    /**
+     * Make targets produced by the registered mapping cacheable (as if it was annotated with
+     * {@code @Mapping(cacheable = true)}). Cache key is made of the source (compared using equals/hashCode, which
+     * means identity unless source class overrides them) and (optionally) its version. Mapping context is not a part
+     * of the key, hence mappings accepting {@link MappingContext} cannot be made cacheable.
+     * Note that cached targets are instances shared across all the callers (and threads), so they must never be
+     * modified once mapped.
+     * @param key key of the registered mapping
+     * @param versionExtractor extractor of the source version. nullable
+     * @throws MappingDefinitionNotFoundException if there is no mapping registered under the given key
+     * @throws IllegalMappingDefinitionException if mapping accepts {@link MappingContext}
+     */
+    public void enableResultCaching(MappingKey key, SourceVersionExtractor versionExtractor) {
+        Mapping mapping = config.get(key);
+        if (mapping == null || !mapping.key.equals(key)) {
+            throw new MappingDefinitionNotFoundException("Stumbled upon undefined mapping \'" + key + "\'");
+        }
+        if (mapping.delegate.requiresContext) {
+            throw new IllegalMappingDefinitionException(
+                    "Mapping \'" + key + "\' accepts MappingContext and so cannot be cacheable");
+        }
+        mapping.delegate.versionExtractor = versionExtractor;
+        mapping.delegate.cacheable = true;
+    }
+
+    /**
+     * Register mapping invoked through the given invoker (as opposed to the one created by the
+     * {@link #getMappingInvokerFactory()}). Intended to be used by the generated {@link MappingRegistrar}s.
+     * @param mappingProvider object which defines the mapping
+     * @param key mapping key
+     * @param invoker mapping invoker
+     * @param returnsTarget true if mapping method returns target (instead of populating the given one)
+     * @param requiresContext true if mapping method accepts {@link MappingContext}
+     * @param description description of the mapping method (used in error messages)
+     * @return key
+     * @throws DuplicateMappingDefinitionException if there is already a mapping registered under the given key
+     */
+    public MappingKey register(Object mappingProvider, MappingKey key, MappingInvoker invoker, boolean returnsTarget,
+                               boolean requiresContext, String description) {
+        MappingDelegate mappingDelegate = new MappingDelegate(mappingProvider, description, invoker,
+                requiresContext, returnsTarget);
+        synchronized (keysByName) {
+            assertNotAlreadyRegistered(key, mappingDelegate);
+            List<MappingKey> keys = keysByName.get(key.mappingName);
+            if (keys == null) {
+                keysByName.put(key.mappingName, keys = new ArrayList<MappingKey>());
+            }
+            assertNotAmbiguous(key, mappingDelegate, keys);
+            keys.add(key);
+            config.put(key, new Mapping(key, mappingDelegate));
+        }
+        onConfigChange();
+        return key;
+    }
+
+    /**
+     * Register bulk mapping (the one which maps the whole list of sources at once) invoked through the given invoker.
+     * Intended to be used by the generated {@link MappingRegistrar}s.
+     * @param mappingProvider object which defines the mapping
+     * @param key (source element class, target element class, mapping name)
+     * @param invoker mapping invoker (called with the list of sources, expected to return the list of targets)
+     * @param requiresContext true if mapping method accepts {@link MappingContext}
+     * @param description description of the mapping method (used in error messages)
+     * @return key
+     * @throws DuplicateMappingDefinitionException if there is already a bulk mapping registered under the given key
+     */
+    public MappingKey registerBulk(Object mappingProvider, MappingKey key, MappingInvoker invoker,
+                                   boolean requiresContext, String description) {
+        MappingDelegate mappingDelegate = new MappingDelegate(mappingProvider, description, invoker,
+                requiresContext, true);
+        Mapping previousMapping = bulkConfig.get(key);
+        if (previousMapping != null) {
+            throw new DuplicateMappingDefinitionException("Found duplicate mapping definitions: '" +
+                    previousMapping.delegate + "' and '" + mappingDelegate + "'");
+        }
+        bulkConfig.put(key, new Mapping(key, mappingDelegate));
+        bulkResolutions.clear();
+        return key;
+    }
+
+    protected MappingRegistrar findMappingRegistrar(Class<?> mappingProviderClass) {
+        String registrarClassName = mappingProviderClass.getName() + MappingRegistrar.CLASS_NAME_SUFFIX;
+        try {
+            Class<?> registrarClass = Class.forName(registrarClassName, true, mappingProviderClass.getClassLoader());
+            return (MappingRegistrar) registrarClass.newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (Exception e) {
+            throw new MappingException("Unable to create instance of " + registrarClassName, e);
+        }
+    }
+
+    protected MappingKey register(Object mappingProvider, Method method, String mappingName) {
+        Class<?> returnType = method.getReturnType();
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (!isValidMapping(returnType, parameterTypes)) {
+            throw new IllegalMappingDefinitionException(
+                    method + " is annotated with @Mapping but doesn't denote a valid mapping");
+        }
+        boolean requiresContext = MappingContext.class.isAssignableFrom(parameterTypes[parameterTypes.length - 1]);
+        MappingKey key = new MappingKey(parameterTypes[0], returnType == Void.TYPE ?
+                parameterTypes[1] : returnType, mappingName);
+        return register(mappingProvider, key, mappingInvokerFactory.createInvoker(mappingProvider, method),
+                returnType != Void.TYPE, requiresContext, method.toString());
+    }
+
+    /**
+     * Register {@code @Mapping(bulk = true)} method.
+     * @throws IllegalMappingDefinitionException if method doesn't denote a valid bulk mapping
+     */
+    protected MappingKey registerBulk(Object mappingProvider, Method method, String mappingName) {
+        Class[] bulkMappingElementTypes = getBulkMappingElementTypes(method);
+        if (bulkMappingElementTypes == null || !isValidMapping(method.getReturnType(), method.getParameterTypes())) {
+            throw new IllegalMappingDefinitionException(
+                    method + " is annotated with @Mapping(bulk = true) but doesn't denote a valid bulk mapping");
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        boolean requiresContext = MappingContext.class.isAssignableFrom(parameterTypes[parameterTypes.length - 1]);
+        return registerBulk(mappingProvider,
+                new MappingKey(bulkMappingElementTypes[0], bulkMappingElementTypes[1], mappingName),
+                mappingInvokerFactory.createInvoker(mappingProvider, method), requiresContext, method.toString());
+    }
+
+    protected boolean isValidMapping(Class<?> returnType, Class<?>[] parameterTypes) {
+        int upperBound = returnType == Void.TYPE ? 3 : 2,
+            numberOfParameters = parameterTypes.length;
+        return (numberOfParameters == upperBound - 1  &&
+                   !MappingContext.class.isAssignableFrom(parameterTypes[upperBound - 2])) ||
+               (numberOfParameters == upperBound &&
+                   MappingContext.class.isAssignableFrom(parameterTypes[upperBound - 1]));
+    }
+
+    /**
+     * @return {source element class, target element class} if method has a signature of the bulk mapping (i.e. takes
+     * {@code List<TypeOfTheSourceObject>} as a first parameter and returns {@code List<TypeOfTheTargetObject>}),
+     * null otherwise
+     */
+    protected Class[] getBulkMappingElementTypes(Method method) {
+        if (method.getReturnType() != List.class || method.getParameterTypes().length == 0 ||
+                method.getParameterTypes()[0] != List.class) {
+            return null;
+        }
+        Class sourceElementType = getTypeArgument(method.getGenericParameterTypes()[0]),
+              targetElementType = getTypeArgument(method.getGenericReturnType());
+        return sourceElementType == null || targetElementType == null ?
+                null : new Class[]{sourceElementType, targetElementType};
+    }
+
+    private static Class getTypeArgument(Type type) {
+        if (!(type instanceof ParameterizedType)) {
+            return null;
+        }
+        Type typeArgument = ((ParameterizedType) type).getActualTypeArguments()[0];
+        if (typeArgument instanceof ParameterizedType) {
+            typeArgument = ((ParameterizedType) typeArgument).getRawType();
+        }
+        return typeArgument instanceof Class && !((Class) typeArgument).isArray() ? (Class) typeArgument : null;
+    }
+
+    protected void assertNotAlreadyRegistered(MappingKey key, MappingDelegate mappingDelegate) {
+        Mapping previousMapping = config.get(key);
+        if (previousMapping != null) {
+            throw new DuplicateMappingDefinitionException("Found duplicate mapping definitions: '" +
+                    previousMapping.delegate + "' and '" + mappingDelegate + "'");
+        }
+    }
+
+    /**
+     * Make sure that mapping doesn't compete with any of the already registered mappings (of the same name) for the
+     * same (source, target) pair, i.e. for the source class implementing both source types or, in case of overlay, for
+     * the target class implementing both target types (in which case the one which comes first in the
+     * {@link ClassLinearizer linearization} wins).
+     * @param keys keys of the registered mappings named the same way as the given one
+     * @throws IllegalMappingDefinitionException if mapping is ambiguous and {@link #isFailOnAmbiguousMappings()}
+     * (otherwise warning is logged)
+     */
+    protected void assertNotAmbiguous(MappingKey key, MappingDelegate mappingDelegate, List<MappingKey> keys) {
+        for (MappingKey anotherKey : keys) {
+            if (key.sourceClass == anotherKey.sourceClass ?
+                    mayHaveCommonSubclass(key.targetClass, anotherKey.targetClass) :
+                    mayHaveCommonSubclass(key.sourceClass, anotherKey.sourceClass) &&
+                    mayBothBeSupertypes(key.targetClass, anotherKey.targetClass)) {
+                String message = "'" + mappingDelegate + "' (" + key + ") and '" + config.get(anotherKey).delegate +
+                        "' (" + anotherKey + ") are ambiguous for the classes implementing both of their source " +
+                        "(or, in case of overlay, target) types";
+                if (failOnAmbiguousMappings) {
+                    throw new IllegalMappingDefinitionException(message);
+                }
+                logger.warn(message + " (the one whose type is declared first is going to be used)");
+            }
+        }
+    }
+
+    /**
+     * @return true if neither of the types is a subtype of another (in which case the more specific one would always
+     * win) but there still might be a class extending both of them
+     */
+    private boolean mayHaveCommonSubclass(Class<?> type, Class<?> anotherType) {
+        if (type.isAssignableFrom(anotherType) || anotherType.isAssignableFrom(type)) {
+            return false;
+        }
+        return (type.isInterface() && !Modifier.isFinal(anotherType.getModifiers())) ||
+               (anotherType.isInterface() && !Modifier.isFinal(type.getModifiers()));
+    }
+
+    /**
+     * @return true if there might be a class extending (or being) both of the types
+     */
+    private boolean mayBothBeSupertypes(Class<?> type, Class<?> anotherType) {
+        return type.isAssignableFrom(anotherType) || anotherType.isAssignableFrom(type) ||
+                mayHaveCommonSubclass(type, anotherType);
+    }
+
+    /**
+     * Same as {@link #findMapping(MappingKey)} but for the bulk mappings (without learning).
+     */
+    protected Mapping findBulkMapping(MappingKey requestedKey) {
+        Mapping mapping = bulkConfig.get(requestedKey);
+        if (mapping == null) {
+            for (Class sourceClass : classLinearizer.linearize(requestedKey.sourceClass)) {
+                mapping = bulkConfig.get(new MappingKey(sourceClass, requestedKey.targetClass,
+                        requestedKey.mappingName));
+                if (mapping != null) {
+                    break;
+                }
+            }
+        }
+        return mapping;
     }
 
     protected Mapping findMapping(MappingKey requestedKey) {
+        return findMapping(requestedKey, false);
+    }
+
+    /**
+     * Look mapping up in the registry, falling back to the class hierarchy walk (see
+     * {@link #findMappingInHierarchy(MappingKey, boolean)}). Outcome of the walk (including the absence of the mapping)
+     * is remembered in the bounded, weak-keyed cache ("self-training"), so that neither proxy classes nor the classes
+     * of the discarded class loaders end up in the {@link #config}.
+     * @param overlay true if mapping is going to populate the existing target (in which case mappings defined for the
+     * target supertypes qualify as well)
+     */
+    protected Mapping findMapping(MappingKey requestedKey, boolean overlay) {
         Mapping mapping = config.get(requestedKey);
+        boolean hierarchyWalk = false;
         if (mapping == null) {
-            MappingKey key = requestedKey;
-            do {
-                Class sourceSuperClass = key.sourceClass.getSuperclass();
-                if (sourceSuperClass == null) {
-                    break;
+            MappingResolutionCache<Mapping> learnedMappings = overlay ?
+                    this.learnedOverlayMappings : this.learnedMappings;
+            mapping = learnedMappings.get(requestedKey.sourceClass, requestedKey.targetClass,
+                    requestedKey.mappingName);
+            if (mapping == null) {
+                hierarchyWalk = true;
+                mapping = findMappingInHierarchy(requestedKey, overlay);
+                learnedMappings.put(requestedKey.sourceClass, requestedKey.targetClass, requestedKey.mappingName,
+                        mapping == null ? NO_MAPPING : mapping);
+            }
+            if (mapping == NO_MAPPING) {
+                mapping = null;
+            }
+        }
+        MappingListener mappingListener = this.mappingListener;
+        if (mappingListener != null) {
+            mappingListener.onResolution(requestedKey, mapping == null ? null : mapping.key, hierarchyWalk);
+        }
+        return mapping;
+    }
+
+    /**
+     * Try each of the source supertypes (in the order of {@link ClassLinearizer linearization}, i.e. superclasses
+     * first, interfaces next and {@link Object} last) and, in case of overlay, each of the target supertypes (in the
+     * same order) for each of them.
+     * @return the first registered mapping found, null if there is none
+     */
+    protected Mapping findMappingInHierarchy(MappingKey requestedKey, boolean overlay) {
+        Class[] targetClasses = overlay ?
+                classLinearizer.linearize(requestedKey.targetClass) : new Class[]{requestedKey.targetClass};
+        for (Class sourceClass : classLinearizer.linearize(requestedKey.sourceClass)) {
+            for (Class targetClass : targetClasses) {
+                Mapping mapping = config.get(new MappingKey(sourceClass, targetClass, requestedKey.mappingName));
+                // mappings returning target are of no use for the target subclasses
+                if (mapping != null && (targetClass == requestedKey.targetClass || !mapping.delegate.returnsTarget)) {
+                    return mapping;
                 }
-                key = new MappingKey(sourceSuperClass, key.targetClass, key.mappingName);
-                mapping = config.get(key);
-            } while (mapping == null);
-            if (mapping != null) {
-                config.put(requestedKey, mapping); // self-training
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compile registry into an immutable {@link FrozenMappingTable}, which is then used (instead of the dispatch
+     * table) to look mappings up. Frozen registry is never modified in place: registration compiles a new one
+     * and atomically swaps it in, which means that lookups of the known triples involve neither CAS nor locking.
+     * Mappings learned so far are compiled in as well, provided both source and target classes come from the
+     * mapper's own class loader (or one of its parents), so that frozen registry doesn't keep classes of the
+     * discarded class loaders from being unloaded. The rest (as well as the ones learned later on) are served by the
+     * (lock-free) resolution cache.
+     * Intended to be called once all the mappings are registered (and, ideally, used, e.g. by the warm-up) upon
+     * application startup.
+     */
+    public synchronized void freeze() {
+        frozenConfig = new FrozenMappingTable<Mapping>(compileFrozenConfig(learnedMappings));
+        frozenOverlayConfig = new FrozenMappingTable<Mapping>(compileFrozenConfig(learnedOverlayMappings));
+    }
+
+    /**
+     * @return registered mappings along with the learned ones which are safe to keep for the lifetime of the mapper
+     */
+    private Map<MappingKey, Mapping> compileFrozenConfig(MappingResolutionCache<Mapping> learnedMappings) {
+        Map<MappingKey, Mapping> result = new HashMap<MappingKey, Mapping>(config);
+        ClassLoader classLoader = getClass().getClassLoader();
+        for (Map.Entry<MappingKey, Mapping> entry : learnedMappings.toMap().entrySet()) {
+            MappingKey key = entry.getKey();
+            if (entry.getValue() != NO_MAPPING && isLoadedBy(key.sourceClass, classLoader) &&
+                    isLoadedBy(key.targetClass, classLoader)) {
+                result.put(key, entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true if class was loaded by the given class loader (or one of its parents)
+     */
+    private static boolean isLoadedBy(Class<?> type, ClassLoader classLoader) {
+        ClassLoader typeClassLoader = type.getClassLoader();
+        if (typeClassLoader == null) {
+            return true;
+        }
+        for (ClassLoader cl = classLoader; cl != null; cl = cl.getParent()) {
+            if (cl == typeClassLoader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Revert {@link #freeze()}.
+     */
+    public synchronized void unfreeze() {
+        frozenConfig = null;
+        frozenOverlayConfig = null;
+    }
+
+    public boolean isFrozen() {
+        return frozenConfig != null;
+    }
+
+    /**
+     * Called after each modification of the {@link #config}.
+     */
+    protected void onConfigChange() {
+        dispatchTable.clear();
+        // both learned and negative entries may no longer be valid
+        learnedMappings.clear();
+        learnedOverlayMappings.clear();
+        bulkResolutions.clear(); // resolution of the bulk mapping depends on the per-element ones as well
+        refreeze();
+    }
+
+    /**
+     * Recompile frozen registry (if any), e.g. after some of the compiled in entries were invalidated.
+     */
+    private void refreeze() {
+        if (frozenConfig != null) {
+            synchronized (this) {
+                if (frozenConfig != null) {
+                    freeze();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return keys of the registered mappings
+     */
+    public Collection<MappingKey> getRegisteredMappings() {
+        return new ArrayList<MappingKey>(config.keySet());
+    }
+
+    /**
+     * @return requested key -&gt; key of the registered mapping it was resolved to (by walking source class
+     * hierarchy), for each of the entries learned by {@link #findMapping(MappingKey)} ("self-training")
+     */
+    public Map<MappingKey, MappingKey> getLearnedMappings() {
+        Map<MappingKey, MappingKey> result = new HashMap<MappingKey, MappingKey>();
+        collectLearnedMappings(learnedOverlayMappings, result);
+        collectLearnedMappings(learnedMappings, result);
+        return result;
+    }
+
+    private void collectLearnedMappings(MappingResolutionCache<Mapping> cache, Map<MappingKey, MappingKey> result) {
+        for (Map.Entry<MappingKey, Mapping> entry : cache.toMap().entrySet()) {
+            if (entry.getValue() != NO_MAPPING) {
+                result.put(entry.getKey(), entry.getValue().key);
+            }
+        }
+    }
+
+    /**
+     * Forget all the learned entries, including the ones compiled into the frozen registry (they are going to be
+     * learned again, upon request).
+     * @return number of entries removed
+     */
+    public int clearLearnedMappings() {
+        int result = getLearnedMappings().size();
+        learnedMappings.clear();
+        learnedOverlayMappings.clear();
+        bulkResolutions.clear();
+        refreeze();
+        return result;
+    }
+
+    /**
+     * Same as {@link #loadMapping(MappingKey)}, except that once resolved mapping is looked up without
+     * {@link MappingKey} allocation (unless {@link MappingListener} is set, as each lookup is reported to it).
+     * Dispatch table is populated only with the triples of the registered mappings (which means it never references
+     * classes the {@link #config} doesn't), learned ones are served by the resolution cache.
+     */
+    protected Mapping loadMapping(Class sourceClass, Class targetClass, String mappingName) {
+        return loadMapping(sourceClass, targetClass, mappingName, false);
+    }
+
+    /**
+     * @param overlay see {@link #findMapping(MappingKey, boolean)}
+     */
+    protected Mapping loadMapping(Class sourceClass, Class targetClass, String mappingName, boolean overlay) {
+        FrozenMappingTable<Mapping> frozenConfig = overlay ? this.frozenOverlayConfig : this.frozenConfig;
+        Mapping mapping = frozenConfig != null ? frozenConfig.get(sourceClass, targetClass, mappingName) :
+                dispatchTable.get(sourceClass, targetClass, mappingName);
+        if (mapping != null) {
+            reportResolution(sourceClass, targetClass, mappingName, mapping);
+        } else {
+            mapping = (overlay ? learnedOverlayMappings : learnedMappings).get(sourceClass, targetClass, mappingName);
+            if (mapping == null || mapping == NO_MAPPING) {
+                mapping = loadMapping(new MappingKey(sourceClass, targetClass, mappingName), overlay);
+                if (frozenConfig == null && mapping.key.sourceClass == sourceClass &&
+                        mapping.key.targetClass == targetClass) {
+                    dispatchTable.put(sourceClass, targetClass, mappingName, mapping);
+                }
+            } else {
+                reportResolution(sourceClass, targetClass, mappingName, mapping);
             }
         }
         return mapping;
     }
 
+    /**
+     * Report lookup which was served without walking class hierarchy (directly from one of the caches) to the
+     * {@link MappingListener} (if any).
+     */
+    private void reportResolution(Class sourceClass, Class targetClass, String mappingName, Mapping mapping) {
+        MappingListener mappingListener = this.mappingListener;
+        if (mappingListener != null) {
+            mappingListener.onResolution(new MappingKey(sourceClass, targetClass, mappingName), mapping.key, false);
+        }
+    }
+
     protected Mapping loadMapping(MappingKey requestedKey) {
-        Mapping mapping = findMapping(requestedKey);
+        return loadMapping(requestedKey, false);
+    }
+
+    protected Mapping loadMapping(MappingKey requestedKey, boolean overlay) {
+        Mapping mapping = findMapping(requestedKey, overlay);
         if (mapping == null) {
             throw new MappingDefinitionNotFoundException("Stumbled upon undefined mapping \'" + requestedKey + "\'");
         }
@@ -435,6 +1889,18 @@ public class HandcraftMapper extends AbstractMapper {
             this.mappingName = mappingName;
         }
 
+        public Class getSourceClass() {
+            return sourceClass;
+        }
+
+        public Class getTargetClass() {
+            return targetClass;
+        }
+
+        public String getMappingName() {
+            return mappingName;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -467,22 +1933,361 @@ public class HandcraftMapper extends AbstractMapper {
     private static final class MappingDelegate {
 
         private final Object delegatee;
-        private final Method method;
+        private final String description;
+        private final MappingInvoker invoker;
         private final boolean requiresContext;
         private final boolean returnsTarget;
+        private volatile SourceVersionExtractor versionExtractor;
+        private volatile boolean cacheable;
 
-        public MappingDelegate(Object delegatee, Method method) {
+        public MappingDelegate(Object delegatee, String description, MappingInvoker invoker,
+                               boolean requiresContext, boolean returnsTarget) {
             this.delegatee = delegatee;
-            this.method = method;
-            Class<?>[] parameterTypes = method.getParameterTypes();
-            this.requiresContext = MappingContext.class.
-                    isAssignableFrom(parameterTypes[parameterTypes.length - 1]);
-            returnsTarget = method.getReturnType() != Void.TYPE;
+            this.description = description;
+            this.invoker = invoker;
+            this.requiresContext = requiresContext;
+            this.returnsTarget = returnsTarget;
         }
 
         @Override
         public String toString() {
-            return method.toString();
+            return description;
+        }
+    }
+
+    private final class HandcraftBoundMapping<S, T> extends AbstractBoundMapping<S, T> {
+
+        private final Mapping mapping;
+
+        private HandcraftBoundMapping(Class<S> sourceClass, Class<T> targetClass, String mappingName,
+                                      Mapping mapping) {
+            super(sourceClass, targetClass, mappingName);
+            this.mapping = mapping;
+        }
+
+        @Override
+        public T map(S source) {
+            if (source == null) {
+                return null;
+            }
+            return mapWithDefaultContext(mapping, source, (T) null);
+        }
+
+        @Override
+        public T map(S source, T target) {
+            assertNotNull(source, "Source object cannot be null");
+            assertNotNull(target, "Target object cannot be null");
+            return mapWithDefaultContext(mapping, source, target);
+        }
+
+        @Override
+        public T map(S source, MappingContext mappingContext) {
+            if (source == null) {
+                return null;
+            }
+            return HandcraftMapper.this.map(mapping, source, (T) null, mappingContext);
+        }
+
+        @Override
+        public T map(S source, T target, MappingContext mappingContext) {
+            assertNotNull(source, "Source object cannot be null");
+            assertNotNull(target, "Target object cannot be null");
+            return HandcraftMapper.this.map(mapping, source, target, mappingContext);
+        }
+
+        @Override
+        protected MappingContext getDefaultContext() {
+            return HandcraftMapper.this.getDefaultContext();
+        }
+    }
+
+    private static final class ReusableMappingContext extends MappingContext {
+
+        private boolean inUse;
+    }
+
+    /**
+     * (source identity, target class, mapping name) -&gt; target. Lookups are allocation-free. Synchronized, as memo
+     * is shared with the forks of the context it was created in (e.g. by mapParallel).
+     */
+    private static final class IdentityMemo {
+
+        private final Map<Object, IdentityMemoEntry> entries = new IdentityHashMap<Object, IdentityMemoEntry>();
+
+        public synchronized Object get(Object source, MappingKey key) {
+            for (IdentityMemoEntry entry = entries.get(source); entry != null; entry = entry.next) {
+                if (entry.targetClass == key.targetClass && entry.mappingName.equals(key.mappingName)) {
+                    return entry.target;
+                }
+            }
+            return null;
+        }
+
+        public synchronized void put(Object source, MappingKey key, Object target) {
+            entries.put(source, new IdentityMemoEntry(key.targetClass, key.mappingName, target,
+                    entries.get(source)));
+        }
+
+        public synchronized void remove(Object source, MappingKey key) {
+            IdentityMemoEntry head = entries.get(source), previous = null;
+            for (IdentityMemoEntry entry = head; entry != null; previous = entry, entry = entry.next) {
+                if (entry.targetClass == key.targetClass && entry.mappingName.equals(key.mappingName)) {
+                    if (previous != null) {
+                        previous.next = entry.next;
+                    } else if (entry.next != null) {
+                        entries.put(source, entry.next);
+                    } else {
+                        entries.remove(source);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class ResultCacheKey {
+
+        private final Mapping mapping;
+        private final Object source;
+        private final Object version;
+        private final int hashCode;
+
+        private ResultCacheKey(Mapping mapping, Object source, Object version) {
+            this.mapping = mapping;
+            this.source = source;
+            this.version = version;
+            int hashCode = System.identityHashCode(mapping);
+            hashCode = 31 * hashCode + source.hashCode();
+            this.hashCode = 31 * hashCode + (version == null ? 0 : version.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ResultCacheKey)) return false;
+            ResultCacheKey that = (ResultCacheKey) o;
+            return mapping == that.mapping && source.equals(that.source) &&
+                    (version == null ? that.version == null : version.equals(that.version));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class IdentityMemoEntry {
+
+        private final Class targetClass;
+        private final String mappingName;
+        private final Object target;
+        private IdentityMemoEntry next;
+
+        private IdentityMemoEntry(Class targetClass, String mappingName, Object target, IdentityMemoEntry next) {
+            this.targetClass = targetClass;
+            this.mappingName = mappingName;
+            this.target = target;
+            this.next = next;
+        }
+    }
+
+    private final class ChunkMappingTaskFactory<T> implements ParallelMappingSupport.ChunkFactory {
+
+        private final Object[] sourceArray;
+        private final Iterable source;
+        private final T[] result;
+        private final Class<T> targetClass;
+        private final String mappingName;
+        private final MappingContext mappingContext;
+
+        private ChunkMappingTaskFactory(Object[] sourceArray, Iterable source, T[] result, Class<T> targetClass,
+                                        String mappingName, MappingContext mappingContext) {
+            this.sourceArray = sourceArray;
+            this.source = source;
+            this.result = result;
+            this.targetClass = targetClass;
+            this.mappingName = mappingName;
+            this.mappingContext = mappingContext;
+        }
+
+        @Override
+        public Callable<Void> newChunk(final int fromIndex, final int toIndex) {
+            final MappingContext chunkContext = mappingContext == null ? null : mappingContext.fork();
+            return new Callable<Void>() {
+
+                @Override
+                public Void call() throws Exception {
+                    mapEach(Arrays.asList(sourceArray).subList(fromIndex, toIndex).iterator(), toIndex - fromIndex,
+                            fromIndex, source, targetClass, mappingName, chunkContext, false,
+                            new ArraySink<T>(result));
+                    return null;
+                }
+            };
+        }
+    }
+
+    /**
+     * Receiver of the elements mapped by the {@link #mapEach}.
+     */
+    private abstract class ElementSink<T> {
+
+        /**
+         * Map source (using mapping resolved for it, null if source is null) and hand the target over to the
+         * {@link #accept(int, Object, Object)}.
+         */
+        protected void map(int index, Object source, Mapping mapping, Class<T> targetClass, String mappingName,
+                           MappingContext mappingContext) {
+            accept(index, source, HandcraftMapper.this.map(mapping, source, targetClass, mappingName, mappingContext));
+        }
+
+        protected abstract void accept(int index, Object source, T target);
+    }
+
+    private final class CollectionSink<T> extends ElementSink<T> {
+
+        private final Collection<T> targetCollection;
+
+        private CollectionSink(Collection<T> targetCollection) {
+            this.targetCollection = targetCollection;
+        }
+
+        @Override
+        protected void accept(int index, Object source, T target) {
+            targetCollection.add(target);
+        }
+    }
+
+    private final class MapSink<S, T> extends ElementSink<T> {
+
+        private final Map<S, T> targetMap;
+
+        private MapSink(Map<S, T> targetMap) {
+            this.targetMap = targetMap;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        protected void accept(int index, Object source, T target) {
+            targetMap.put((S) source, target);
+        }
+    }
+
+    private final class ArraySink<T> extends ElementSink<T> {
+
+        private final T[] result;
+
+        private ArraySink(T[] result) {
+            this.result = result;
+        }
+
+        @Override
+        protected void accept(int index, Object source, T target) {
+            result[index] = target;
+        }
+    }
+
+    private final class LazyMapping<T> implements ElementMapper<T> {
+
+        private final Iterable source;
+        private final Class<T> targetClass;
+        private final String mappingName;
+        private final MappingContext mappingContext;
+        private final InlineMappingCache inlineCache;
+
+        private LazyMapping(Iterable source, Class<T> targetClass, String mappingName,
+                            MappingContext mappingContext) {
+            this.source = source;
+            this.targetClass = targetClass;
+            this.mappingName = mappingName;
+            this.mappingContext = mappingContext;
+            this.inlineCache = new InlineMappingCache(targetClass, mappingName);
+        }
+
+        @Override
+        public T map(Object element, int index) {
+            if (element == null) {
+                return null;
+            }
+            Mapping mapping = inlineCache.get(element);
+            if (mappingContext == null) {
+                return HandcraftMapper.this.map(mapping, element, (T) null, null);
+            }
+            Iterable<Object> previousSource = mappingContext.getSource();
+            int previousSourceIndex = mappingContext.getSourceIndex();
+            mappingContext.setSource(source);
+            mappingContext.setSourceIndex(index);
+            try {
+                return HandcraftMapper.this.map(mapping, element, (T) null, mappingContext);
+            } finally {
+                mappingContext.setSource(previousSource);
+                mappingContext.setSourceIndex(previousSourceIndex);
+            }
+        }
+    }
+
+    /**
+     * Polymorphic inline cache of the bulk loop (instantiated per call, not thread-safe). Remembers last
+     * {@link #SIZE} (runtime class -&gt; mapping) pairs, so that elements of the classes seen before are mapped without
+     * proxy narrowing and mapping lookup. Proxies (classes narrowed to something other than themselves) are never
+     * cached, as the outcome of narrowing may depend on the instance.
+     */
+    private final class InlineMappingCache {
+
+        private static final int SIZE = 8;
+
+        private final Class targetClass;
+        private final String mappingName;
+        private final Class[] sourceClasses = new Class[SIZE];
+        private final Mapping[] mappings = new Mapping[SIZE];
+        private int next;
+
+        private InlineMappingCache(Class targetClass, String mappingName) {
+            this.targetClass = targetClass;
+            this.mappingName = mappingName;
+        }
+
+        /**
+         * @return mapping for the given source, null if source is null
+         */
+        public Mapping get(Object source) {
+            if (source == null) {
+                return null;
+            }
+            Class sourceClass = source.getClass();
+            for (int i = 0; i < SIZE; i++) {
+                if (sourceClasses[i] == sourceClass) {
+                    Mapping mapping = mappings[i];
+                    reportResolution(sourceClass, targetClass, mappingName, mapping);
+                    return mapping;
+                }
+            }
+            Class narrowedSourceClass = proxyNarrowingStrategy.narrow(source);
+            Mapping mapping = loadMapping(narrowedSourceClass, targetClass, mappingName);
+            if (narrowedSourceClass == sourceClass) {
+                sourceClasses[next] = sourceClass;
+                mappings[next] = mapping;
+                next = (next + 1) & (SIZE - 1);
+            }
+            return mapping;
+        }
+    }
+
+    private static final Mapping NO_MAPPING = new Mapping(null, null);
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        private final String threadNamePrefix;
+        private final AtomicInteger threadCounter = new AtomicInteger();
+
+        private DaemonThreadFactory(String threadNamePrefix) {
+            this.threadNamePrefix = threadNamePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, threadNamePrefix + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
         }
     }
 
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import com.github.shyiko.mappify.api.MappingException;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exposes {@link HandcraftMapper} state (registered/learned mappings, invocation statistics) over JMX.
+ * <pre>
+ * ObjectName objectName = HandcraftMapperManagement.register(handcraftMapper, "default");
+ * </pre>
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class HandcraftMapperManagement implements HandcraftMapperManagementMBean {
+
+    public static final String OBJECT_NAME_PREFIX = "com.github.shyiko.mappify:type=HandcraftMapper,name=";
+
+    private final HandcraftMapper handcraftMapper;
+
+    public HandcraftMapperManagement(HandcraftMapper handcraftMapper) {
+        this.handcraftMapper = handcraftMapper;
+    }
+
+    /**
+     * Register MBean of the given mapper with the platform MBean server.
+     * @param handcraftMapper mapper
+     * @param name value of the "name" key of the object name
+     * @return object name MBean was registered under
+     */
+    public static ObjectName register(HandcraftMapper handcraftMapper, String name) {
+        try {
+            ObjectName objectName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    new HandcraftMapperManagement(handcraftMapper), objectName);
+            return objectName;
+        } catch (Exception e) {
+            throw new MappingException("Unable to register MBean of the " + handcraftMapper, e);
+        }
+    }
+
+    /**
+     * @param objectName object name returned by {@link #register(HandcraftMapper, String)}
+     */
+    public static void unregister(ObjectName objectName) {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            throw new MappingException("Unable to unregister " + objectName, e);
+        }
+    }
+
+    @Override
+    public String getProxyNarrowingStrategy() {
+        ProxyNarrowingStrategy proxyNarrowingStrategy = handcraftMapper.getProxyNarrowingStrategy();
+        return proxyNarrowingStrategy == null ? null : proxyNarrowingStrategy.getClass().getName();
+    }
+
+    @Override
+    public String[] getRegisteredMappings() {
+        return toSortedArray(handcraftMapper.getRegisteredMappings());
+    }
+
+    @Override
+    public String[] getLearnedMappings() {
+        List<String> result = new ArrayList<String>();
+        for (Map.Entry<HandcraftMapper.MappingKey, HandcraftMapper.MappingKey> entry :
+                handcraftMapper.getLearnedMappings().entrySet()) {
+            result.add(entry.getKey() + " => " + entry.getValue());
+        }
+        return toSortedArray(result);
+    }
+
+    @Override
+    public String[] getInvocationCounts() {
+        List<String> result = new ArrayList<String>();
+        for (MappingStatistics statistics : getStatistics()) {
+            result.add(statistics.getKey() + " => " + statistics.getInvocationCount());
+        }
+        return toSortedArray(result);
+    }
+
+    @Override
+    public boolean isMetricsEnabled() {
+        return handcraftMapper.getMappingListener() instanceof MappingMetrics;
+    }
+
+    @Override
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        if (metricsEnabled != isMetricsEnabled()) {
+            MappingListener mappingListener = handcraftMapper.getMappingListener();
+            handcraftMapper.setMappingListener(metricsEnabled ? new MappingMetrics(mappingListener) :
+                    ((MappingMetrics) mappingListener).getDelegate());
+        }
+    }
+
+    @Override
+    public int clearLearnedMappings() {
+        return handcraftMapper.clearLearnedMappings();
+    }
+
+    @Override
+    public String[] dumpHottestMappings(int limit) {
+        List<MappingStatistics> statistics = new ArrayList<MappingStatistics>(getStatistics());
+        Collections.sort(statistics, new Comparator<MappingStatistics>() {
+
+            @Override
+            public int compare(MappingStatistics o1, MappingStatistics o2) {
+                long t1 = o1.getTotalNanos(), t2 = o2.getTotalNanos();
+                return t1 < t2 ? 1 : (t1 == t2 ? 0 : -1);
+            }
+        });
+        int length = Math.max(0, Math.min(limit, statistics.size()));
+        String[] result = new String[length];
+        for (int i = 0; i < length; i++) {
+            MappingStatistics mappingStatistics = statistics.get(i);
+            result[i] = mappingStatistics + " (total " + mappingStatistics.getTotalNanos() / 1000000 + "ms)";
+        }
+        return result;
+    }
+
+    private Collection<MappingStatistics> getStatistics() {
+        MappingListener mappingListener = handcraftMapper.getMappingListener();
+        if (mappingListener instanceof MappingMetrics) {
+            return ((MappingMetrics) mappingListener).getStatistics();
+        }
+        return Collections.emptyList();
+    }
+
+    private String[] toSortedArray(Collection<?> collection) {
+        List<String> result = new ArrayList<String>(collection.size());
+        for (Object object : collection) {
+            result.add(object.toString());
+        }
+        Collections.sort(result);
+        return result.toArray(new String[result.size()]);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+/**
+ * Management interface of the {@link HandcraftMapper} (see {@link HandcraftMapperManagement}).
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public interface HandcraftMapperManagementMBean {
+
+    /**
+     * @return class name of the proxy narrowing strategy in use
+     */
+    String getProxyNarrowingStrategy();
+
+    /**
+     * @return registered mappings
+     */
+    String[] getRegisteredMappings();
+
+    /**
+     * @return entries learned by walking source class hierarchy ("requested key =&gt; resolved key")
+     */
+    String[] getLearnedMappings();
+
+    /**
+     * @return per-mapping invocation counts ("key =&gt; count"), empty unless metrics are enabled
+     */
+    String[] getInvocationCounts();
+
+    /**
+     * @return true if {@link MappingMetrics} is set as the mapper's listener
+     */
+    boolean isMetricsEnabled();
+
+    /**
+     * @param metricsEnabled true to start collecting metrics (by setting {@link MappingMetrics}, which forwards
+     * events to the previously set listener (if any), as the mapper's listener), false to stop (by restoring the
+     * previous listener)
+     */
+    void setMetricsEnabled(boolean metricsEnabled);
+
+    /**
+     * @return number of entries removed
+     * @see HandcraftMapper#clearLearnedMappings()
+     */
+    int clearLearnedMappings();
+
+    /**
+     * @param limit maximum number of mappings to return
+     * @return statistics of the mappings with the highest total time, empty unless metrics are enabled
+     */
+    String[] dumpHottestMappings(int limit);
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+/**
+ * Factory of the target objects (used for void-returning mappings when no target is given). Instances are created
+ * by {@link InstantiatorStrategy} (or registered through
+ * {@link HandcraftMapper#registerInstantiator(Class, Instantiator)}) once per class and must be thread-safe.
+ *
+ * @param <T> type of the objects produced
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public interface Instantiator<T> {
+
+    /**
+     * @return new instance
+     * @throws Exception exception thrown by the constructor (or factory method), possibly wrapped in
+     * {@link java.lang.reflect.InvocationTargetException}, or any other failure
+     */
+    T newInstance() throws Exception;
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+/**
+ * Strategy of {@link Instantiator} creation. Called by {@link HandcraftMapper} once per target class (result is
+ * cached).
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public interface InstantiatorStrategy {
+
+    /**
+     * @param type class to instantiate
+     * @return instantiator of the given class
+     * @throws com.github.shyiko.mappify.api.MappingException if class cannot be instantiated by this strategy
+     */
+    <T> Instantiator<T> getInstantiator(Class<T> type);
+}
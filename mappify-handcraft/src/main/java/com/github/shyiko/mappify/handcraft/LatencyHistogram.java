@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free (striped, see {@link StripedCounter}) histogram of latencies with power-of-two buckets: bucket 0 counts
+ * latencies below 1024ns, bucket i - latencies in [2^(i + 9), 2^(i + 10)) ns, last bucket - everything above.
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+final class LatencyHistogram {
+
+    static final int BUCKETS = 32;
+    private static final int FIRST_BUCKET_BITS = 10;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(StripedCounter.STRIPES * BUCKETS);
+    private final StripedCounter totalNanos = new StripedCounter();
+
+    public void record(long nanos) {
+        buckets.getAndIncrement(StripedCounter.stripe() * BUCKETS + bucket(nanos));
+        totalNanos.add(nanos);
+    }
+
+    /**
+     * @return number of recorded values per bucket
+     */
+    public long[] snapshot() {
+        long[] result = new long[BUCKETS];
+        for (int i = 0, length = buckets.length(); i < length; i++) {
+            result[i % BUCKETS] += buckets.get(i);
+        }
+        return result;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public void reset() {
+        for (int i = 0, length = buckets.length(); i < length; i++) {
+            buckets.set(i, 0);
+        }
+        totalNanos.reset();
+    }
+
+    static int bucket(long nanos) {
+        int bits = 64 - Long.numberOfLeadingZeros(nanos);
+        return bits <= FIRST_BUCKET_BITS ? 0 : Math.min(bits - FIRST_BUCKET_BITS, BUCKETS - 1);
+    }
+
+    /**
+     * @return (exclusive) upper bound of the bucket in nanoseconds (Long.MAX_VALUE for the last one)
+     */
+    static long upperBound(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : 1L << (bucket + FIRST_BUCKET_BITS);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterable counterpart of the {@link LazyMappedList} (elements are mapped as the iteration goes). Memoized iterable
+ * traverses source only once, no matter how many times it's iterated over. Not thread-safe.
+ *
+ * @param <T> target type
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+class LazyMappedIterable<T> implements Iterable<T> {
+
+    private final Iterable source;
+    private final ElementMapper<T> elementMapper;
+    private final List<T> memo;
+    private Iterator sourceIterator;
+
+    /**
+     * @param memoize true if each element should be mapped at most once, false if element is to be mapped on each
+     * iteration
+     */
+    LazyMappedIterable(Iterable source, ElementMapper<T> elementMapper, boolean memoize) {
+        this.source = source;
+        this.elementMapper = elementMapper;
+        this.memo = memoize ? new ArrayList<T>() : null;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        if (memo == null) {
+            final Iterator iterator = source.iterator();
+            return new Iterator<T>() {
+
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    return elementMapper.map(iterator.next(), index++);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+        return new Iterator<T>() {
+
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < memo.size() || getSourceIterator().hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (index == memo.size()) {
+                    Iterator iterator = getSourceIterator();
+                    if (!iterator.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    memo.add(elementMapper.map(iterator.next(), index));
+                }
+                return memo.get(index++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private Iterator getSourceIterator() {
+        if (sourceIterator == null) {
+            sourceIterator = source.iterator();
+        }
+        return sourceIterator;
+    }
+}
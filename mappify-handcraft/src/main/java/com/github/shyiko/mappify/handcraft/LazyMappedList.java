@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only view over the source list, which maps element only when it's accessed (see
+ * {@link HandcraftMapper#mapLazily(java.util.List, Class, String, com.github.shyiko.mappify.api.MappingContext,
+ * boolean)}). Not thread-safe.
+ *
+ * @param <T> target type
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+class LazyMappedList<T> extends AbstractList<T> {
+
+    private static final Object NOT_MAPPED = new Object();
+
+    private final List source;
+    private final ElementMapper<T> elementMapper;
+    private final Object[] memo;
+
+    /**
+     * @param memoize true if each element should be mapped at most once, false if element is to be mapped on each
+     * access
+     */
+    LazyMappedList(List source, ElementMapper<T> elementMapper, boolean memoize) {
+        this.source = source;
+        this.elementMapper = elementMapper;
+        if (memoize) {
+            memo = new Object[source.size()];
+            Arrays.fill(memo, NOT_MAPPED);
+        } else {
+            memo = null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(int index) {
+        if (memo == null) {
+            return elementMapper.map(source.get(index), index);
+        }
+        Object result = memo[index];
+        if (result == NOT_MAPPED) {
+            memo[index] = result = elementMapper.map(source.get(index), index);
+        }
+        return (T) result;
+    }
+
+    @Override
+    public int size() {
+        return memo == null ? source.size() : memo.length;
+    }
+}
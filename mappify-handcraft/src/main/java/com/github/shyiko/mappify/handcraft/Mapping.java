@@ -40,6 +40,16 @@ import java.lang.annotation.*;
  * // for obvious reasons, this type of mapping requires TypeOfTheTargetObject.class to be specified
  * // as a second parameter for Mapper.map(...) calls
  * </pre>
+ * or (bulk mapping, see {@link #bulk()})
+ * <pre>
+ * &#64;Mapping(bulk = true)
+ * public List&lt;TypeOfTheTargetObject&gt; methodName(List&lt;TypeOfTheSourceObject&gt; sourceObjects
+ * [, MappingContext context]) { ... }
+ * // used by the collection/array HandcraftMapper.map(...) calls (in place of the element mapping) whenever each
+ * // element of the source is an instance of TypeOfTheSourceObject (and none of them has element mapping defined
+ * // for the more specific type). Must return targets in the order of the sources (and must not modify the list of
+ * // sources)
+ * </pre>
  * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
  */
 @Target(ElementType.METHOD)
@@ -52,4 +62,21 @@ public @interface Mapping {
      * @return name of the mapping
      */
     String value() default "";
+
+    /**
+     * @return true if targets produced by this mapping should be cached (and shared between the map calls) by
+     * {@link HandcraftMapper#getResultCache()}. Only suitable for the mappings of immutable sources (or versioned ones,
+     * see {@link HandcraftMapper#enableResultCaching(HandcraftMapper.MappingKey, SourceVersionExtractor)})
+     * targets of which are never modified (cached targets are instances shared across all the callers). Mapping
+     * accepting {@link com.github.shyiko.mappify.api.MappingContext} cannot be cacheable (context is not a part of the
+     * cache key)
+     */
+    boolean cacheable() default false;
+
+    /**
+     * @return true if this is a bulk mapping (of the {@code List<TypeOfTheSourceObject>} to the
+     * {@code List<TypeOfTheTargetObject>}), registered under the (TypeOfTheSourceObject, TypeOfTheTargetObject, name)
+     * key. Without it, such a method is an ordinary mapping of the List to the List. Bulk mapping cannot be cacheable
+     */
+    boolean bulk() default false;
 }
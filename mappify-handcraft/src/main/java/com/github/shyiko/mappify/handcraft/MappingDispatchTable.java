@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * (source class, target class, mapping name) -&gt; value table, indexed by the source class.
+ * Each source class maps to a small (copy-on-write) array of (target class, mapping name) entries, so that lookup of
+ * already known triple neither allocates nor computes hash code of the mapping name (names are interned on
+ * {@link #put(Class, Class, String, Object)}, which makes reference comparison succeed for the literals).
+ *
+ * @param <V> value type
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class MappingDispatchTable<V> {
+
+    private final ConcurrentMap<Class, Entry<V>[]> table = new ConcurrentHashMap<Class, Entry<V>[]>();
+
+    /**
+     * @param sourceClass source class
+     * @param targetClass target class
+     * @param mappingName mapping name
+     * @return value associated with the given triple, null if there is none
+     */
+    public V get(Class sourceClass, Class targetClass, String mappingName) {
+        Entry<V>[] entries = table.get(sourceClass);
+        if (entries != null) {
+            for (Entry<V> entry : entries) {
+                if (entry.targetClass == targetClass &&
+                    (entry.mappingName == mappingName || entry.mappingName.equals(mappingName))) {
+                    return entry.value;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Associate value with the given triple (overriding if necessary).
+     * @param sourceClass source class
+     * @param targetClass target class
+     * @param mappingName mapping name
+     * @param value value
+     */
+    @SuppressWarnings("unchecked")
+    public void put(Class sourceClass, Class targetClass, String mappingName, V value) {
+        Entry<V> newEntry = new Entry<V>(targetClass, mappingName.intern(), value);
+        while (true) {
+            Entry<V>[] entries = table.get(sourceClass);
+            if (entries == null) {
+                if (table.putIfAbsent(sourceClass, new Entry[]{newEntry}) == null) {
+                    return;
+                }
+                continue;
+            }
+            int index = 0;
+            while (index < entries.length && !(entries[index].targetClass == targetClass &&
+                    entries[index].mappingName == newEntry.mappingName)) {
+                index++;
+            }
+            Entry<V>[] updatedEntries = new Entry[Math.max(entries.length, index + 1)];
+            System.arraycopy(entries, 0, updatedEntries, 0, entries.length);
+            updatedEntries[index] = newEntry;
+            if (table.replace(sourceClass, entries, updatedEntries)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Remove all the entries.
+     */
+    public void clear() {
+        table.clear();
+    }
+
+    private static final class Entry<V> {
+
+        private final Class targetClass;
+        private final String mappingName;
+        private final V value;
+
+        private Entry(Class targetClass, String mappingName, V value) {
+            this.targetClass = targetClass;
+            this.mappingName = mappingName;
+            this.value = value;
+        }
+    }
+}
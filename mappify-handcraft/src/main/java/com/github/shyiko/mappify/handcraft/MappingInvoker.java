@@ -0,0 +1,37 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import com.github.shyiko.mappify.api.MappingContext;
+
+/**
+ * Invoker of the {@link Mapping}-annotated method. Instances are created by {@link MappingInvokerFactory} once per
+ * method (during {@link HandcraftMapper#register(Object)}) and must be thread-safe.
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public interface MappingInvoker {
+
+    /**
+     * @param source source object
+     * @param target target object. null unless mapping method is void-returning
+     * @param mappingContext mapping context. nullable
+     * @return object returned by the mapping method, null in case of void-returning one
+     * @throws java.lang.reflect.InvocationTargetException if mapping method threw an exception
+     * @throws Exception in case of any other failure
+     */
+    Object invoke(Object source, Object target, MappingContext mappingContext) throws Exception;
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import java.lang.reflect.Method;
+
+/**
+ * Factory of {@link MappingInvoker}s.
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public interface MappingInvokerFactory {
+
+    /**
+     * @param mappingProvider object which declares the method
+     * @param method {@link Mapping}-annotated method (already validated by {@link HandcraftMapper})
+     * @return invoker of the given method
+     */
+    MappingInvoker createInvoker(Object mappingProvider, Method method);
+}
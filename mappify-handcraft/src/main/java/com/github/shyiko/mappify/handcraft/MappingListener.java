@@ -0,0 +1,45 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+/**
+ * Listener of the {@link HandcraftMapper} activity (see {@link HandcraftMapper#setMappingListener(MappingListener)}).
+ * Methods are called synchronously (on the mapping thread), so implementations must be thread-safe and cheap.
+ *
+ * @see MappingMetrics
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public interface MappingListener {
+
+    /**
+     * Called after each mapping (whether successful or not).
+     * @param key key of the mapping which was invoked (source class is the one mapping was defined for, which might
+     * be a superclass of the actual source class)
+     * @param elapsedNanos time spent in the mapping (including nested mappings)
+     * @param failure exception thrown by the mapping, null if mapping succeeded
+     */
+    void onMapping(HandcraftMapper.MappingKey key, long elapsedNanos, Throwable failure);
+
+    /**
+     * Called on each mapping lookup (whether served by one of the caches or not).
+     * @param requestedKey requested key
+     * @param resolvedKey key of the mapping found, null if there is none
+     * @param hierarchyWalk true if source class hierarchy had to be walked in order to resolve the mapping (result of
+     * the walk is learned, so subsequent lookups of the requestedKey are resolved directly)
+     */
+    void onResolution(HandcraftMapper.MappingKey requestedKey, HandcraftMapper.MappingKey resolvedKey,
+                      boolean hierarchyWalk);
+}
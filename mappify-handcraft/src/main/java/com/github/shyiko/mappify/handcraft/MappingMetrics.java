@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link MappingListener} which keeps per-mapping invocation/error counters and latency histograms, along with the
+ * mapping resolution statistics. All the counters are striped and lock-free, so that collection of the metrics doesn't
+ * introduce contention between the mapping threads.
+ * <pre>
+ * MappingMetrics metrics = new MappingMetrics();
+ * handcraftMapper.setMappingListener(metrics);
+ * ...
+ * for (MappingStatistics statistics : metrics.getStatistics()) { ... }
+ * </pre>
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class MappingMetrics implements MappingListener {
+
+    private final ConcurrentMap<HandcraftMapper.MappingKey, Metrics> metrics =
+            new ConcurrentHashMap<HandcraftMapper.MappingKey, Metrics>();
+    private final StripedCounter registeredKeyHits = new StripedCounter();
+    private final StripedCounter learnedKeyHits = new StripedCounter();
+    private final StripedCounter hierarchyWalks = new StripedCounter();
+    private final StripedCounter misses = new StripedCounter();
+    private final MappingListener delegate;
+
+    public MappingMetrics() {
+        this(null);
+    }
+
+    /**
+     * @param delegate listener each event is forwarded to (e.g. the one which was set before metrics were enabled).
+     * nullable
+     */
+    public MappingMetrics(MappingListener delegate) {
+        this.delegate = delegate;
+    }
+
+    public MappingListener getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void onMapping(HandcraftMapper.MappingKey key, long elapsedNanos, Throwable failure) {
+        Metrics keyMetrics = metrics.get(key);
+        if (keyMetrics == null) {
+            Metrics newKeyMetrics = new Metrics();
+            keyMetrics = metrics.putIfAbsent(key, newKeyMetrics);
+            if (keyMetrics == null) {
+                keyMetrics = newKeyMetrics;
+            }
+        }
+        keyMetrics.latency.record(elapsedNanos);
+        if (failure != null) {
+            keyMetrics.errors.increment();
+        }
+        if (delegate != null) {
+            delegate.onMapping(key, elapsedNanos, failure);
+        }
+    }
+
+    @Override
+    public void onResolution(HandcraftMapper.MappingKey requestedKey, HandcraftMapper.MappingKey resolvedKey,
+                             boolean hierarchyWalk) {
+        if (resolvedKey == null) {
+            misses.increment();
+        } else if (hierarchyWalk) {
+            hierarchyWalks.increment();
+        } else if (resolvedKey.equals(requestedKey)) {
+            registeredKeyHits.increment();
+        } else {
+            learnedKeyHits.increment();
+        }
+        if (delegate != null) {
+            delegate.onResolution(requestedKey, resolvedKey, hierarchyWalk);
+        }
+    }
+
+    /**
+     * @return statistics of all the mappings invoked so far
+     */
+    public Collection<MappingStatistics> getStatistics() {
+        Collection<MappingStatistics> result = new ArrayList<MappingStatistics>(metrics.size());
+        for (HandcraftMapper.MappingKey key : metrics.keySet()) {
+            result.add(getStatistics(key));
+        }
+        return result;
+    }
+
+    /**
+     * @param key mapping key
+     * @return statistics of the given mapping (all zeros if it wasn't invoked yet)
+     */
+    public MappingStatistics getStatistics(HandcraftMapper.MappingKey key) {
+        Metrics keyMetrics = metrics.get(key);
+        if (keyMetrics == null) {
+            return new MappingStatistics(key, 0, 0, 0, new long[LatencyHistogram.BUCKETS]);
+        }
+        long[] histogram = keyMetrics.latency.snapshot();
+        long invocationCount = 0;
+        for (long bucketCount : histogram) {
+            invocationCount += bucketCount;
+        }
+        return new MappingStatistics(key, invocationCount, keyMetrics.errors.sum(),
+                keyMetrics.latency.getTotalNanos(), histogram);
+    }
+
+    /**
+     * @return number of lookups resolved directly to the registered mapping
+     */
+    public long getRegisteredKeyHits() {
+        return registeredKeyHits.sum();
+    }
+
+    /**
+     * @return number of lookups resolved directly to the mapping learned during one of the previous hierarchy walks
+     * ("self-training")
+     */
+    public long getLearnedKeyHits() {
+        return learnedKeyHits.sum();
+    }
+
+    /**
+     * @return number of lookups which required walk over the source class hierarchy
+     */
+    public long getHierarchyWalks() {
+        return hierarchyWalks.sum();
+    }
+
+    /**
+     * @return number of lookups which didn't resolve to any mapping
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public void reset() {
+        metrics.clear();
+        registeredKeyHits.reset();
+        learnedKeyHits.reset();
+        hierarchyWalks.reset();
+        misses.reset();
+    }
+
+    private static final class Metrics {
+
+        private final StripedCounter errors = new StripedCounter();
+        private final LatencyHistogram latency = new LatencyHistogram();
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import java.util.Collection;
+
+/**
+ * Registrar of the {@link Mapping}-annotated methods of a particular mapping provider class. Implementations are
+ * generated at compile time by the mappify-processor (as &lt;provider class binary name&gt;{@link #CLASS_NAME_SUFFIX})
+ * and picked up by {@link HandcraftMapper#register(Object)}, which then neither scans provider class nor invokes
+ * mapping methods through reflection.
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public interface MappingRegistrar {
+
+    String CLASS_NAME_SUFFIX = "$$MappingRegistrar";
+
+    /**
+     * @param handcraftMapper mapper to register mappings with
+     * @param mappingProvider instance of the class this registrar was generated for
+     * @return collection of registered mappings
+     */
+    Collection<HandcraftMapper.MappingKey> register(HandcraftMapper handcraftMapper, Object mappingProvider);
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded (source class, target class, mapping name) -&gt; value cache, which references classes weakly (so that
+ * neither generated proxy classes nor classes of the discarded class loaders are kept from being unloaded).
+ * Lookups are allocation- and lock-free. Updates are serialized. Once cache is full, entries are evicted in the
+ * clock order (of the buckets).
+ *
+ * @param <V> value type
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+class MappingResolutionCache<V> {
+
+    private final int maximumSize;
+    private final AtomicReferenceArray<Entry<V>> table;
+    private final int mask;
+    private final ReferenceQueue<Class> queue = new ReferenceQueue<Class>();
+    private int size; // guarded by this
+    private int evictionHand; // guarded by this
+
+    MappingResolutionCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        this.maximumSize = maximumSize;
+        int capacity = 1;
+        while (capacity < maximumSize) {
+            capacity <<= 1;
+        }
+        this.table = new AtomicReferenceArray<Entry<V>>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @return value associated with the given triple, null if there is none
+     */
+    public V get(Class sourceClass, Class targetClass, String mappingName) {
+        for (Entry<V> entry = table.get(index(sourceClass)); entry != null; entry = entry.next) {
+            if (entry.get() == sourceClass && entry.matches(targetClass, mappingName)) {
+                return entry.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Same as {@link #get(Class, Class, String)} but for the values associated with the class alone.
+     */
+    public V get(Class type) {
+        return get(type, null, "");
+    }
+
+    /**
+     * Same as {@link #put(Class, Class, String, Object)} but for the values associated with the class alone.
+     */
+    public void put(Class type, V value) {
+        put(type, null, "", value);
+    }
+
+    /**
+     * Associate value with the given triple (overriding if necessary), evicting some other entry if cache is full.
+     */
+    public synchronized void put(Class sourceClass, Class targetClass, String mappingName, V value) {
+        expungeStaleEntries();
+        int index = index(sourceClass);
+        for (Entry<V> entry = table.get(index); entry != null; entry = entry.next) {
+            if (entry.get() == sourceClass && entry.matches(targetClass, mappingName)) {
+                remove(index, entry);
+                break;
+            }
+        }
+        while (size >= maximumSize) {
+            evict();
+        }
+        table.set(index, new Entry<V>(sourceClass, targetClass, mappingName.intern(), value, index,
+                table.get(index), queue));
+        size++;
+    }
+
+    public synchronized int size() {
+        expungeStaleEntries();
+        return size;
+    }
+
+    /**
+     * @return number of entries removed
+     */
+    public synchronized int clear() {
+        for (int i = 0; i < table.length(); i++) {
+            table.set(i, null);
+        }
+        int result = size;
+        size = 0;
+        return result;
+    }
+
+    /**
+     * @return copy of the (live) entries
+     */
+    public synchronized Map<HandcraftMapper.MappingKey, V> toMap() {
+        Map<HandcraftMapper.MappingKey, V> result = new HashMap<HandcraftMapper.MappingKey, V>();
+        for (int i = 0; i < table.length(); i++) {
+            for (Entry<V> entry = table.get(i); entry != null; entry = entry.next) {
+                Class sourceClass = entry.get(), targetClass = entry.targetClass.get();
+                if (sourceClass != null && targetClass != null) {
+                    result.put(new HandcraftMapper.MappingKey(sourceClass, targetClass, entry.mappingName),
+                            entry.value);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void evict() {
+        while (table.get(evictionHand) == null) {
+            evictionHand = (evictionHand + 1) & mask;
+        }
+        remove(evictionHand, table.get(evictionHand));
+        evictionHand = (evictionHand + 1) & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void expungeStaleEntries() {
+        Entry<V> entry;
+        while ((entry = (Entry<V>) queue.poll()) != null) {
+            remove(entry.index, entry);
+        }
+    }
+
+    /**
+     * Unlinks entry (if it's still present). Entries being unlinked keep pointing to their successors, so that
+     * concurrent lookups are not affected.
+     */
+    private void remove(int index, Entry<V> entryToRemove) {
+        Entry<V> previous = null;
+        for (Entry<V> entry = table.get(index); entry != null; previous = entry, entry = entry.next) {
+            if (entry == entryToRemove) {
+                if (previous == null) {
+                    table.set(index, entry.next);
+                } else {
+                    previous.next = entry.next;
+                }
+                size--;
+                return;
+            }
+        }
+    }
+
+    private int index(Class sourceClass) {
+        int hash = sourceClass.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static final class Entry<V> extends WeakReference<Class> {
+
+        private final WeakReference<Class> targetClass;
+        private final String mappingName;
+        private final V value;
+        private final int index;
+        private volatile Entry<V> next;
+
+        private Entry(Class sourceClass, Class targetClass, String mappingName, V value, int index, Entry<V> next,
+                      ReferenceQueue<Class> queue) {
+            super(sourceClass, queue);
+            this.index = index;
+            this.targetClass = new WeakReference<Class>(targetClass);
+            this.mappingName = mappingName;
+            this.value = value;
+            this.next = next;
+        }
+
+        private boolean matches(Class targetClass, String mappingName) {
+            return this.targetClass.get() == targetClass &&
+                    (this.mappingName == mappingName || this.mappingName.equals(mappingName));
+        }
+    }
+}
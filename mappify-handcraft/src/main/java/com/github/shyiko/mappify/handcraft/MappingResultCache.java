@@ -0,0 +1,158 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded key -&gt; mapped target cache (used by {@link HandcraftMapper} for the mappings with result caching
+ * enabled).
+ * Reads are lock-free. Once size limit is exceeded, cache evicts least frequently used entry among the few sampled
+ * ones (sampling is done by the "clock hand" sweeping over the entries, decrementing access frequency of each entry
+ * it passes by, so that entries which were popular only in the past eventually become eligible for eviction).
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class MappingResultCache {
+
+    private static final int SAMPLE_SIZE = 8;
+    private static final int MAX_FREQUENCY = 255;
+
+    private final ConcurrentMap<Object, Entry> entries = new ConcurrentHashMap<Object, Entry>();
+    private final int maximumSize;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    /**
+     * guarded by this
+     */
+    private Iterator<Entry> clockHand;
+
+    /**
+     * @param maximumSize maximum number of entries to keep (0 disables caching)
+     */
+    public MappingResultCache(int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("Maximum size cannot be negative");
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @param key key
+     * @return cached value, null if there is none
+     */
+    public Object get(Object key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        int frequency = entry.frequency;
+        if (frequency < MAX_FREQUENCY) {
+            entry.frequency = frequency + 1; // lost updates are fine, frequency is an estimate anyway
+        }
+        hitCount.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * @param key key
+     * @param value value
+     */
+    public void put(Object key, Object value) {
+        if (maximumSize == 0) {
+            return;
+        }
+        if (entries.put(key, new Entry(key, value)) == null && entries.size() > maximumSize) {
+            evict();
+        }
+    }
+
+    private synchronized void evict() {
+        int size;
+        while ((size = entries.size()) > maximumSize) {
+            Entry victim = null;
+            for (int i = 0, sampleSize = Math.min(SAMPLE_SIZE, size); i < sampleSize; i++) {
+                if (clockHand == null || !clockHand.hasNext()) {
+                    clockHand = entries.values().iterator();
+                    if (!clockHand.hasNext()) {
+                        break;
+                    }
+                }
+                Entry entry = clockHand.next();
+                if (victim == null || entry.frequency < victim.frequency) {
+                    victim = entry;
+                }
+                int frequency = entry.frequency;
+                if (frequency > 0) {
+                    entry.frequency = frequency - 1;
+                }
+            }
+            if (victim == null) {
+                return;
+            }
+            if (entries.remove(victim.key, victim)) {
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "MappingResultCache{size=" + size() + ", maximumSize=" + maximumSize + ", hitCount=" + getHitCount() +
+                ", missCount=" + getMissCount() + ", evictionCount=" + getEvictionCount() + "}";
+    }
+
+    private static final class Entry {
+
+        private final Object key;
+        private final Object value;
+        private volatile int frequency;
+
+        private Entry(Object key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
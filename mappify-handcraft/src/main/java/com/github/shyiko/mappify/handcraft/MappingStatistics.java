@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+/**
+ * Snapshot of the {@link MappingMetrics} collected for a particular mapping.
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class MappingStatistics {
+
+    private final HandcraftMapper.MappingKey key;
+    private final long invocationCount;
+    private final long errorCount;
+    private final long totalNanos;
+    private final long[] latencyHistogram;
+
+    public MappingStatistics(HandcraftMapper.MappingKey key, long invocationCount, long errorCount,
+                             long totalNanos, long[] latencyHistogram) {
+        this.key = key;
+        this.invocationCount = invocationCount;
+        this.errorCount = errorCount;
+        this.totalNanos = totalNanos;
+        this.latencyHistogram = latencyHistogram;
+    }
+
+    public HandcraftMapper.MappingKey getKey() {
+        return key;
+    }
+
+    /**
+     * @return number of invocations (including failed ones)
+     */
+    public long getInvocationCount() {
+        return invocationCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return total time spent in the mapping (including nested mappings)
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getAverageNanos() {
+        return invocationCount == 0 ? 0 : totalNanos / invocationCount;
+    }
+
+    /**
+     * @param percentile percentile (e.g. 0.99)
+     * @return upper bound of the latency (in nanoseconds) the given fraction of invocations fit into (values are
+     * rounded up to the power of two), 0 if there were no invocations
+     */
+    public long getLatencyPercentile(double percentile) {
+        long count = 0;
+        for (long bucketCount : latencyHistogram) {
+            count += bucketCount;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(count * percentile), accumulated = 0;
+        for (int i = 0; i < latencyHistogram.length; i++) {
+            accumulated += latencyHistogram[i];
+            if (accumulated >= threshold) {
+                return LatencyHistogram.upperBound(i);
+            }
+        }
+        return LatencyHistogram.upperBound(latencyHistogram.length - 1);
+    }
+
+    @Override
+    public String toString() {
+        return key + " {invocations=" + invocationCount + ", errors=" + errorCount +
+                ", avg=" + getAverageNanos() + "ns, p99<" + getLatencyPercentile(0.99) + "ns}";
+    }
+}
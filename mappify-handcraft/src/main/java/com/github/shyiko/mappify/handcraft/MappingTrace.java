@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Node of the tree recorded by the {@link MappingTracer}. Repeated invocations of the same mapping (e.g. for each
+ * element of the collection) made by the same parent are merged into a single node.
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class MappingTrace {
+
+    private final HandcraftMapper.MappingKey key;
+    private final String description;
+    private final boolean bulk;
+    private final List<MappingTrace> children = new ArrayList<MappingTrace>();
+    private int invocationCount;
+    private long elementCount;
+    private long elapsedNanos;
+    private Throwable failure;
+    // state of the current invocation
+    MappingTrace parent;
+    long startTime;
+
+    MappingTrace(HandcraftMapper.MappingKey key, String description, boolean bulk) {
+        this.key = key;
+        this.description = description;
+        this.bulk = bulk;
+    }
+
+    /**
+     * @return key of the mapping which was invoked. For bulk calls, source class is the one of the first element
+     */
+    public HandcraftMapper.MappingKey getKey() {
+        return key;
+    }
+
+    /**
+     * @return description of the mapping method (which includes provider class), null in case of bulk call
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return true if node represents mapping of the collection/array (as opposed to a single object)
+     */
+    public boolean isBulk() {
+        return bulk;
+    }
+
+    /**
+     * @return number of times mapping was invoked by the parent
+     */
+    public int getInvocationCount() {
+        return invocationCount;
+    }
+
+    /**
+     * @return total number of elements mapped (0 unless {@link #isBulk()})
+     */
+    public long getElementCount() {
+        return elementCount;
+    }
+
+    /**
+     * @return total time spent in the mapping (including nested mappings)
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return time spent in the mapping itself (excluding nested mappings)
+     */
+    public long getSelfNanos() {
+        long result = elapsedNanos;
+        for (MappingTrace child : children) {
+            result -= child.elapsedNanos;
+        }
+        return result;
+    }
+
+    /**
+     * @return first exception thrown by the mapping, null if there was none
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public List<MappingTrace> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    MappingTrace getOrCreateChild(HandcraftMapper.MappingKey key, String description, boolean bulk) {
+        for (MappingTrace child : children) {
+            if (child.bulk == bulk && child.key.equals(key)) {
+                return child;
+            }
+        }
+        MappingTrace child = new MappingTrace(key, description, bulk);
+        children.add(child);
+        return child;
+    }
+
+    void record(long elementCount, long elapsedNanos, Throwable failure) {
+        this.invocationCount++;
+        this.elementCount += elementCount;
+        this.elapsedNanos += elapsedNanos;
+        if (this.failure == null) {
+            this.failure = failure;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        append(sb, 0);
+        return sb.toString();
+    }
+
+    private void append(StringBuilder sb, int depth) {
+        for (int i = 0; i < depth; i++) {
+            sb.append("  ");
+        }
+        sb.append(bulk ? "[" : "").append(key).append(bulk ? "]" : "");
+        sb.append(" ").append(elapsedNanos / 1000).append("us");
+        if (invocationCount > 1) {
+            sb.append(" x").append(invocationCount);
+        }
+        if (bulk) {
+            sb.append(" (").append(elementCount).append(" elements)");
+        }
+        if (description != null) {
+            sb.append(" by ").append(description);
+        }
+        if (failure != null) {
+            sb.append(" failed with ").append(failure);
+        }
+        for (MappingTrace child : children) {
+            sb.append('\n');
+            child.append(sb, depth + 1);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records tree of the mappings (including the nested ones, i.e. the ones invoked by the {@link Mapping}-annotated
+ * methods through the mapper) made during each top-level mapping call and hands it over to the
+ * {@link MappingTraceListener} if the call took longer than the threshold
+ * (see {@link HandcraftMapper#setMappingTracer(MappingTracer)}).
+ * <p/>
+ * Trees are thread-confined, which means that chunks of mapParallel executed by the other threads are recorded
+ * as separate trees.
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class MappingTracer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappingTracer.class);
+
+    private final long thresholdNanos;
+    private final MappingTraceListener listener;
+    private final ThreadLocal<MappingTrace> current = new ThreadLocal<MappingTrace>();
+
+    /**
+     * @param threshold minimal duration of the top-level mapping call for the trace to be reported
+     * @param timeUnit unit of the threshold
+     * @param listener receiver of the traces
+     */
+    public MappingTracer(long threshold, TimeUnit timeUnit, MappingTraceListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Trace listener cannot be null");
+        }
+        this.thresholdNanos = timeUnit.toNanos(threshold);
+        this.listener = listener;
+    }
+
+    public long getThreshold(TimeUnit timeUnit) {
+        return timeUnit.convert(thresholdNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Must be followed by {@link #exit(long, Throwable)}.
+     */
+    void enter(HandcraftMapper.MappingKey key, String description, boolean bulk) {
+        MappingTrace parent = current.get();
+        MappingTrace trace = parent == null ? new MappingTrace(key, description, bulk) :
+                parent.getOrCreateChild(key, description, bulk);
+        trace.parent = parent;
+        trace.startTime = System.nanoTime();
+        current.set(trace);
+    }
+
+    void exit(long elementCount, Throwable failure) {
+        MappingTrace trace = current.get();
+        trace.record(elementCount, System.nanoTime() - trace.startTime, failure);
+        MappingTrace parent = trace.parent;
+        trace.parent = null;
+        if (parent != null) {
+            current.set(parent);
+            return;
+        }
+        current.remove();
+        if (trace.getElapsedNanos() >= thresholdNanos) {
+            try {
+                listener.onSlowMapping(trace);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to report slow mapping trace", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import com.github.shyiko.mappify.api.MappingContext;
+import com.github.shyiko.mappify.api.MappingException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Execution of the parallel mappings (see {@link HandcraftMapper#mapParallel(java.util.Collection, Class, String,
+ * MappingContext)}). Source is split into contiguous chunks, each one of which is mapped by the executor or, if it
+ * wasn't picked up by the time calling thread is done with the previous ones, by the calling thread itself (which
+ * means that neither saturated nor shut down executor can stall the mapping).
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+final class ParallelMappingSupport {
+
+    private ParallelMappingSupport() {
+    }
+
+    /**
+     * Map [0, size) range in (up to) numberOfChunks chunks. Chunks are created by the calling thread (in order).
+     * Failure of any of the chunks is rethrown (as is, unless it's a checked exception), the ones which haven't
+     * started yet are cancelled.
+     */
+    static void mapInChunks(Executor executor, int size, int numberOfChunks, ChunkFactory chunkFactory) {
+        int chunkSize = (size + numberOfChunks - 1) / numberOfChunks;
+        List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>(numberOfChunks);
+        for (int from = 0; from < size; from += chunkSize) {
+            FutureTask<Void> task = new FutureTask<Void>(chunkFactory.newChunk(from, Math.min(from + chunkSize, size)));
+            if (!tasks.isEmpty()) {
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    // task is going to be executed by the calling thread
+                }
+            }
+            tasks.add(task);
+        }
+        try {
+            for (FutureTask<Void> task : tasks) {
+                task.run(); // no-op unless task wasn't picked up by the executor yet
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MappingException("Interrupted while waiting for the parallel mapping to complete", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new MappingException("Parallel mapping failed", cause);
+        } finally {
+            for (FutureTask<Void> task : tasks) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    interface ChunkFactory {
+
+        /**
+         * @return task mapping [fromIndex, toIndex) range of the source
+         */
+        Callable<Void> newChunk(int fromIndex, int toIndex);
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import com.github.shyiko.mappify.api.MappingContext;
+
+/**
+ * {@link MappingInvoker} capable of calling primitive-returning mapping method (e.g. {@code long idOf(Order order)})
+ * without boxing of the result (see {@link HandcraftMapper#mapToLongArray(java.util.Collection, String,
+ * MappingContext)}). Each of the methods may only be called if mapping method returns corresponding type.
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public interface PrimitiveMappingInvoker extends MappingInvoker {
+
+    /**
+     * @see MappingInvoker#invoke(Object, Object, MappingContext)
+     */
+    long invokeForLong(Object source, MappingContext mappingContext) throws Exception;
+
+    /**
+     * @see MappingInvoker#invoke(Object, Object, MappingContext)
+     */
+    int invokeForInt(Object source, MappingContext mappingContext) throws Exception;
+
+    /**
+     * @see MappingInvoker#invoke(Object, Object, MappingContext)
+     */
+    double invokeForDouble(Object source, MappingContext mappingContext) throws Exception;
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import com.github.shyiko.mappify.api.MappingContext;
+
+import java.lang.reflect.Array;
+
+/**
+ * Array of primitives (long[], int[] or double[]) being populated by the projection (see
+ * {@link HandcraftMapper#mapToLongArray(java.util.Collection, String, MappingContext)}). Results of the
+ * {@link PrimitiveMappingInvoker}s are stored without boxing.
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+final class PrimitiveProjection {
+
+    private final Class type;
+    private final Object result;
+
+    /**
+     * @param type long.class, int.class or double.class
+     * @param size number of elements
+     */
+    PrimitiveProjection(Class type, int size) {
+        if (type != Long.TYPE && type != Integer.TYPE && type != Double.TYPE) {
+            throw new IllegalArgumentException("Unsupported projection type " + type);
+        }
+        this.type = type;
+        this.result = Array.newInstance(type, size);
+    }
+
+    public Class getType() {
+        return type;
+    }
+
+    /**
+     * @return long[], int[] or double[] (depending on {@link #getType()})
+     */
+    public Object getResult() {
+        return result;
+    }
+
+    /**
+     * Store projection of the given source at the given index.
+     */
+    public void project(MappingInvoker invoker, Object source, int index, MappingContext mappingContext)
+            throws Exception {
+        if (invoker instanceof PrimitiveMappingInvoker) {
+            PrimitiveMappingInvoker primitiveInvoker = (PrimitiveMappingInvoker) invoker;
+            if (type == Long.TYPE) {
+                ((long[]) result)[index] = primitiveInvoker.invokeForLong(source, mappingContext);
+            } else if (type == Integer.TYPE) {
+                ((int[]) result)[index] = primitiveInvoker.invokeForInt(source, mappingContext);
+            } else {
+                ((double[]) result)[index] = primitiveInvoker.invokeForDouble(source, mappingContext);
+            }
+        } else {
+            Array.set(result, index, invoker.invoke(source, null, mappingContext));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import com.github.shyiko.mappify.api.MappingException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+
+/**
+ * {@link InstantiatorStrategy} which produces instantiators relying on {@link Constructor#newInstance(Object...)}.
+ * Unlike {@link Class#newInstance()}, no-arg constructor is not required to be public.
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class ReflectiveInstantiatorStrategy implements InstantiatorStrategy {
+
+    @Override
+    public <T> Instantiator<T> getInstantiator(Class<T> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            throw new MappingException("Unable to create instance of " + type + " (class is abstract)");
+        }
+        Constructor<T> constructor;
+        try {
+            constructor = type.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new MappingException("Unable to create instance of " + type + " (no-arg constructor is missing)");
+        }
+        if (!Modifier.isPublic(constructor.getModifiers()) || !Modifier.isPublic(type.getModifiers())) {
+            constructor.setAccessible(true);
+        }
+        return new ReflectiveInstantiator<T>(constructor);
+    }
+
+    private static final class ReflectiveInstantiator<T> implements Instantiator<T> {
+
+        private final Constructor<T> constructor;
+
+        private ReflectiveInstantiator(Constructor<T> constructor) {
+            this.constructor = constructor;
+        }
+
+        @Override
+        public T newInstance() throws Exception {
+            return constructor.newInstance();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import com.github.shyiko.mappify.api.MappingContext;
+
+import java.lang.reflect.Method;
+
+/**
+ * {@link MappingInvokerFactory} which produces invokers relying on {@link Method#invoke(Object, Object...)}.
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class ReflectiveMappingInvokerFactory implements MappingInvokerFactory {
+
+    @Override
+    public MappingInvoker createInvoker(Object mappingProvider, Method method) {
+        return new ReflectiveMappingInvoker(mappingProvider, method);
+    }
+
+    private static final class ReflectiveMappingInvoker implements MappingInvoker {
+
+        private final Object delegatee;
+        private final Method method;
+        private final boolean requiresContext;
+        private final boolean returnsTarget;
+
+        private ReflectiveMappingInvoker(Object delegatee, Method method) {
+            this.delegatee = delegatee;
+            this.method = method;
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            this.requiresContext = MappingContext.class.isAssignableFrom(parameterTypes[parameterTypes.length - 1]);
+            this.returnsTarget = method.getReturnType() != Void.TYPE;
+        }
+
+        @Override
+        public Object invoke(Object source, Object target, MappingContext mappingContext) throws Exception {
+            if (returnsTarget) {
+                return method.invoke(delegatee, requiresContext ?
+                        new Object[]{source, mappingContext} : new Object[]{source});
+            }
+            return method.invoke(delegatee, requiresContext ?
+                    new Object[]{source, target, mappingContext} : new Object[]{source, target});
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+/**
+ * Extractor of the source version, which becomes part of the {@link MappingResultCache} key (so that mapping of the
+ * updated source doesn't end up with the stale target).
+ *
+ * @see HandcraftMapper#enableResultCaching(HandcraftMapper.MappingKey, SourceVersionExtractor)
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public interface SourceVersionExtractor {
+
+    /**
+     * @param source source object
+     * @return version of the source (e.g. value of the optimistic locking field). nullable
+     */
+    Object getVersion(Object source);
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free counter split into a number of cells (selected by the id of the updating thread), so that concurrent
+ * updates don't fight over the same cache line. Sum is not an atomic snapshot (which is fine for the statistics).
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+final class StripedCounter {
+
+    /**
+     * number of longs per stripe (64 bytes, i.e. a cache line)
+     */
+    private static final int PADDING = 8;
+    static final int STRIPES = stripes();
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    public void increment() {
+        add(1);
+    }
+
+    public void add(long delta) {
+        cells.getAndAdd(stripe() * PADDING, delta);
+    }
+
+    public long sum() {
+        long result = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            result += cells.get(i * PADDING);
+        }
+        return result;
+    }
+
+    public void reset() {
+        for (int i = 0; i < STRIPES; i++) {
+            cells.set(i * PADDING, 0);
+        }
+    }
+
+    /**
+     * @return index of the stripe to be used by the current thread
+     */
+    static int stripe() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static int stripes() {
+        int processors = Runtime.getRuntime().availableProcessors(), result = 1;
+        while (result < processors && result < 64) {
+            result <<= 1;
+        }
+        return result;
+    }
+}
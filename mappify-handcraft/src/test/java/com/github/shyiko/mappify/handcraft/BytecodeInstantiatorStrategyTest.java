@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import com.github.shyiko.mappify.api.MappingException;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class BytecodeInstantiatorStrategyTest {
+
+    private final BytecodeInstantiatorStrategy strategy = new BytecodeInstantiatorStrategy();
+
+    @Test
+    public void testGeneratedInstantiator() throws Exception {
+        Instantiator<PublicTarget> instantiator = strategy.getInstantiator(PublicTarget.class);
+        assertTrue(instantiator.getClass().getName().startsWith("com.github.shyiko.mappify.handcraft.generated."));
+        PublicTarget target = instantiator.newInstance();
+        assertNotSame(instantiator.newInstance(), target);
+        assertEquals(target.name, "public");
+        assertTrue(strategy.getInstantiator(ArrayList.class).newInstance().isEmpty());
+    }
+
+    @Test
+    public void testFallback() throws Exception {
+        Instantiator<PackagePrivateTarget> instantiator = strategy.getInstantiator(PackagePrivateTarget.class);
+        assertFalse(instantiator.getClass().getName().startsWith("com.github.shyiko.mappify.handcraft.generated."));
+        assertEquals(instantiator.newInstance().name, "package-private");
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testFailingConstructor() throws Exception {
+        strategy.getInstantiator(FailingTarget.class).newInstance(); // exception is not wrapped
+    }
+
+    @Test(expectedExceptions = MappingException.class)
+    public void testAbstractClass() throws Exception {
+        strategy.getInstantiator(AbstractTarget.class);
+    }
+
+    @Test(expectedExceptions = MappingException.class)
+    public void testClassWithoutNoArgConstructor() throws Exception {
+        strategy.getInstantiator(Integer.class);
+    }
+
+    public static class PublicTarget {
+
+        private String name = "public";
+    }
+
+    static class PackagePrivateTarget {
+
+        private String name = "package-private";
+
+        private PackagePrivateTarget() {
+        }
+    }
+
+    public static class FailingTarget {
+
+        public FailingTarget() {
+            throw new IllegalStateException();
+        }
+    }
+
+    public abstract static class AbstractTarget {
+    }
+}
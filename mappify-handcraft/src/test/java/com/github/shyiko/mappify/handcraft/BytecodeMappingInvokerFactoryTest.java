@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import com.github.shyiko.mappify.api.MappingContext;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class BytecodeMappingInvokerFactoryTest {
+
+    private final BytecodeMappingInvokerFactory factory = new BytecodeMappingInvokerFactory();
+
+    @Test
+    public void testOverlayMapping() throws Exception {
+        MappingInvoker invoker = createInvoker(new PublicMappingProvider(), "mapOnto", Source.class, Target.class);
+        assertTrue(invoker instanceof GeneratedMappingInvoker);
+        Target target = new Target();
+        assertNull(invoker.invoke(new Source(7), target, null));
+        assertEquals(target.name, "Target #7");
+    }
+
+    @Test
+    public void testMappingWithContext() throws Exception {
+        MappingInvoker invoker = createInvoker(new PublicMappingProvider(), "mapWithContext",
+                Source.class, MappingContext.class);
+        assertTrue(invoker instanceof GeneratedMappingInvoker);
+        Target target = (Target) invoker.invoke(new Source(7), null, new MappingContext("prefix", "#"));
+        assertEquals(target.name, "#7");
+    }
+
+    @Test
+    public void testStaticMapping() throws Exception {
+        MappingInvoker invoker = createInvoker(new PublicMappingProvider(), "mapStatically", Source.class);
+        assertTrue(invoker instanceof GeneratedMappingInvoker);
+        assertEquals(((Target) invoker.invoke(new Source(7), null, null)).name, "7");
+    }
+
+    @Test
+    public void testPrimitiveMapping() throws Exception {
+        MappingInvoker invoker = createInvoker(new PublicMappingProvider(), "idOf", Source.class);
+        assertTrue(invoker instanceof GeneratedMappingInvoker);
+        assertEquals(((PrimitiveMappingInvoker) invoker).invokeForLong(new Source(7), null), 7L);
+        assertEquals(invoker.invoke(new Source(7), null, null), 7L);
+        MappingInvoker staticInvoker = createInvoker(new PublicMappingProvider(), "weightOf",
+                Source.class, MappingContext.class);
+        assertEquals(((PrimitiveMappingInvoker) staticInvoker).invokeForDouble(new Source(7),
+                new MappingContext("factor", 0.5)), 3.5);
+    }
+
+    @Test
+    public void testFailingMapping() throws Exception {
+        MappingInvoker invoker = createInvoker(new PublicMappingProvider(), "mapWithFailure", Source.class);
+        try {
+            invoker.invoke(new Source(7), null, null);
+            fail();
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof UnsupportedOperationException);
+        }
+    }
+
+    @Test
+    public void testFallbackForNonPublicMappingProvider() throws Exception {
+        class MappingProvider {
+            @Mapping
+            public Target map(Source source) {
+                Target target = new Target();
+                target.name = String.valueOf(source.id);
+                return target;
+            }
+        }
+        MappingInvoker invoker = createInvoker(new MappingProvider(), "map", Source.class);
+        assertFalse(invoker instanceof GeneratedMappingInvoker);
+        assertEquals(((Target) invoker.invoke(new Source(7), null, null)).name, "7");
+    }
+
+    private MappingInvoker createInvoker(Object mappingProvider, String methodName, Class... parameterTypes)
+            throws NoSuchMethodException {
+        Method method = mappingProvider.getClass().getDeclaredMethod(methodName, parameterTypes);
+        return factory.createInvoker(mappingProvider, method);
+    }
+
+    public static class PublicMappingProvider {
+
+        @Mapping
+        public void mapOnto(Source source, Target target) {
+            target.name = "Target #" + source.id;
+        }
+
+        @Mapping
+        public Target mapWithContext(Source source, MappingContext context) {
+            Target target = new Target();
+            target.name = context.get("prefix") + String.valueOf(source.id);
+            return target;
+        }
+
+        @Mapping
+        public static Target mapStatically(Source source) {
+            Target target = new Target();
+            target.name = String.valueOf(source.id);
+            return target;
+        }
+
+        @Mapping
+        public long idOf(Source source) {
+            return source.id;
+        }
+
+        @Mapping
+        public static double weightOf(Source source, MappingContext context) {
+            return source.id * context.<Double>get("factor");
+        }
+
+        @Mapping
+        public Target mapWithFailure(Source source) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static class Source {
+
+        private int id;
+
+        public Source(int id) {
+            this.id = id;
+        }
+    }
+
+    public static class Target {
+
+        private String name;
+    }
+}
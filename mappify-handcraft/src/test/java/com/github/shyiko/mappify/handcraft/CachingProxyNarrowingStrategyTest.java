@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import org.testng.annotations.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class CachingProxyNarrowingStrategyTest {
+
+    @Test
+    public void testNarrow() throws Exception {
+        final AtomicInteger delegateInvocationCounter = new AtomicInteger();
+        CachingProxyNarrowingStrategy strategy = new CachingProxyNarrowingStrategy(new ProxyNarrowingStrategy() {
+
+            @Override
+            public Class narrow(Object target) {
+                delegateInvocationCounter.incrementAndGet();
+                return target.getClass();
+            }
+        }, Arrays.asList(ProxyMarker.class.getName()));
+        assertEquals(strategy.narrow(new Entity()), Entity.class);
+        assertEquals(strategy.narrow(new EntityProxy()), Entity.class);
+        assertEquals(strategy.narrow(new EntityProxyOfProxy()), Entity.class);
+        assertEquals(strategy.narrow(new EntityProxy()), Entity.class);
+        assertEquals(delegateInvocationCounter.get(), 0);
+    }
+
+    @Test
+    public void testNarrowJDKProxy() throws Exception {
+        CachingProxyNarrowingStrategy strategy = new CachingProxyNarrowingStrategy(new ProxyNarrowingStrategy() {
+
+            @Override
+            public Class narrow(Object target) {
+                throw new UnsupportedOperationException();
+            }
+        }, Arrays.asList(ProxyMarker.class.getName()));
+        Object proxy = Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{Identified.class, ProxyMarker.class}, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                return null;
+            }
+        });
+        assertEquals(strategy.narrow(proxy), proxy.getClass());
+        assertEquals(strategy.narrow(proxy), proxy.getClass());
+    }
+
+    public interface Identified {
+    }
+
+    public interface ProxyMarker {
+    }
+
+    public static class Entity {
+    }
+
+    public static class EntityProxy extends Entity implements ProxyMarker {
+    }
+
+    public static class EntityProxyOfProxy extends EntityProxy implements ProxyMarker {
+    }
+}
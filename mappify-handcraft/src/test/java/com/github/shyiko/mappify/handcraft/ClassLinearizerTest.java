@@ -0,0 +1,50 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+/**
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class ClassLinearizerTest {
+
+    @Test
+    public void testLinearize() throws Exception {
+        ClassLinearizer classLinearizer = new ClassLinearizer(16);
+        Class[] expectedLinearization = {ArrayList.class, AbstractList.class, AbstractCollection.class, List.class,
+                RandomAccess.class, Cloneable.class, Serializable.class, Collection.class, Iterable.class,
+                Object.class};
+        assertEquals(classLinearizer.linearize(ArrayList.class), expectedLinearization);
+        assertEquals(classLinearizer.linearize(ArrayList.class), expectedLinearization); // cached
+        assertEquals(classLinearizer.linearize(List.class),
+                new Class[]{List.class, Collection.class, Iterable.class, Object.class});
+        assertEquals(classLinearizer.linearize(Object.class), new Class[]{Object.class});
+        assertSame(classLinearizer.linearize(int.class)[0], int.class);
+        assertEquals(classLinearizer.linearize(int.class).length, 1);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class FrozenMappingTableTest {
+
+    private static final Class[] CLASSES = {Object.class, String.class, Integer.class, Long.class, Double.class,
+            Map.class, HashMap.class, StringBuilder.class, Thread.class, Class.class};
+
+    @Test
+    public void testGet() throws Exception {
+        Map<HandcraftMapper.MappingKey, String> entries = new HashMap<HandcraftMapper.MappingKey, String>();
+        for (Class sourceClass : CLASSES) {
+            for (Class targetClass : CLASSES) {
+                entries.put(new HandcraftMapper.MappingKey(sourceClass, targetClass, ""),
+                        sourceClass.getSimpleName() + "->" + targetClass.getSimpleName());
+                entries.put(new HandcraftMapper.MappingKey(sourceClass, targetClass, "named"),
+                        sourceClass.getSimpleName() + "->" + targetClass.getSimpleName() + "#named");
+            }
+        }
+        FrozenMappingTable<String> table = new FrozenMappingTable<String>(entries);
+        assertEquals(table.size(), entries.size());
+        for (Map.Entry<HandcraftMapper.MappingKey, String> entry : entries.entrySet()) {
+            HandcraftMapper.MappingKey key = entry.getKey();
+            // mapping name is deliberately not interned
+            assertEquals(table.get(key.getSourceClass(), key.getTargetClass(), new String(key.getMappingName())),
+                    entry.getValue());
+        }
+        assertNull(table.get(Object.class, Object.class, "unknown"));
+        assertNull(table.get(Byte.class, Object.class, ""));
+        assertTrue(table.getDisplacement() < entries.size());
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        FrozenMappingTable<String> table = new FrozenMappingTable<String>(
+                new HashMap<HandcraftMapper.MappingKey, String>());
+        assertEquals(table.size(), 0);
+        assertNull(table.get(Object.class, Object.class, ""));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import com.github.shyiko.mappify.handcraft.MappingMetricsTest.MappingProvider;
+import com.github.shyiko.mappify.handcraft.MappingMetricsTest.Source;
+import com.github.shyiko.mappify.handcraft.MappingMetricsTest.SourceSubclass;
+import com.github.shyiko.mappify.handcraft.MappingMetricsTest.Target;
+import org.testng.annotations.Test;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class HandcraftMapperManagementTest {
+
+    @Test
+    public void testMBean() throws Exception {
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        ObjectName objectName = HandcraftMapperManagement.register(handcraftMapper, "test");
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(mBeanServer.getAttribute(objectName, "ProxyNarrowingStrategy"),
+                    CachingProxyNarrowingStrategy.class.getName());
+            String sourceToTarget = Source.class.getName() + " -> " + Target.class.getName();
+            assertEquals((String[]) mBeanServer.getAttribute(objectName, "RegisteredMappings"),
+                    new String[]{sourceToTarget});
+            mBeanServer.setAttribute(objectName, new Attribute("MetricsEnabled", true));
+            handcraftMapper.map(new SourceSubclass(1), Target.class);
+            handcraftMapper.map(new Source(2), Target.class);
+            assertEquals((String[]) mBeanServer.getAttribute(objectName, "LearnedMappings"), new String[]{
+                    SourceSubclass.class.getName() + " -> " + Target.class.getName() + " => " + sourceToTarget});
+            assertEquals((String[]) mBeanServer.getAttribute(objectName, "InvocationCounts"),
+                    new String[]{sourceToTarget + " => 2"});
+            String[] hottestMappings = (String[]) mBeanServer.invoke(objectName, "dumpHottestMappings",
+                    new Object[]{10}, new String[]{int.class.getName()});
+            assertEquals(hottestMappings.length, 1);
+            assertTrue(hottestMappings[0].startsWith(sourceToTarget));
+            assertEquals(mBeanServer.invoke(objectName, "clearLearnedMappings", new Object[0], new String[0]), 1);
+            assertEquals(((String[]) mBeanServer.getAttribute(objectName, "LearnedMappings")).length, 0);
+            assertEquals(handcraftMapper.map(new SourceSubclass(3), Target.class).getClass(), Target.class);
+        } finally {
+            HandcraftMapperManagement.unregister(objectName);
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+    }
+
+    @Test
+    public void testMetricsPreserveMappingListener() throws Exception {
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        final int[] mappings = new int[1];
+        MappingListener mappingListener = new MappingListener() {
+
+            @Override
+            public void onMapping(HandcraftMapper.MappingKey key, long elapsedNanos, Throwable failure) {
+                mappings[0]++;
+            }
+
+            @Override
+            public void onResolution(HandcraftMapper.MappingKey requestedKey, HandcraftMapper.MappingKey resolvedKey,
+                                     boolean hierarchyWalk) {
+            }
+        };
+        handcraftMapper.setMappingListener(mappingListener);
+        HandcraftMapperManagement management = new HandcraftMapperManagement(handcraftMapper);
+        management.setMetricsEnabled(true);
+        assertTrue(management.isMetricsEnabled());
+        handcraftMapper.map(new Source(1), Target.class);
+        assertEquals(mappings[0], 1);
+        assertEquals(management.getInvocationCounts().length, 1);
+        management.setMetricsEnabled(false);
+        assertSame(handcraftMapper.getMappingListener(), mappingListener);
+        handcraftMapper.map(new Source(2), Target.class);
+        assertEquals(mappings[0], 2);
+    }
+}
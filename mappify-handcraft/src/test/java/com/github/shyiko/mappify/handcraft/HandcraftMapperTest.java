@@ -15,10 +15,34 @@
  */
 package com.github.shyiko.mappify.handcraft;
 
+import com.github.shyiko.mappify.api.AsyncMapper;
+import com.github.shyiko.mappify.api.BoundMapping;
+import com.github.shyiko.mappify.api.ConcurrentMappingContext;
+import com.github.shyiko.mappify.api.MappingContext;
 import com.github.shyiko.mappify.api.MappingException;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 /**
  * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
@@ -70,6 +94,881 @@ public class HandcraftMapperTest {
         assertEquals(target.getName(), "Target #7");
     }
 
+    @Test
+    public void testMapSubclassUsingSuperclassMapping() throws Exception {
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target) {
+                target.name = "Target #" + source.id;
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        for (int i = 0; i < 3; i++) {
+            Target target = handcraftMapper.map(new Source(i) {}, Target.class, new String(""));
+            assertEquals(target.name, "Target #" + i);
+        }
+    }
+
+    @Test
+    public void testBind() throws Exception {
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target) {
+                target.name = "Target #" + source.id;
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        BoundMapping<Source, Target> mapping = handcraftMapper.bind(Source.class, Target.class);
+        assertEquals(mapping.map(new Source(7)).name, "Target #7");
+        Target target = new Target();
+        assertEquals(mapping.map(new Source(8), target), target);
+        assertEquals(target.name, "Target #8");
+        List<Target> targets = mapping.mapToArrayList(Arrays.asList(new Source(1), new Source(2)));
+        assertEquals(targets.size(), 2);
+        assertEquals(targets.get(1).name, "Target #2");
+    }
+
+    @Test(expectedExceptions = MappingDefinitionNotFoundException.class)
+    public void testBindToUndefinedMapping() throws Exception {
+        new HandcraftMapper().bind(Source.class, Target.class, "undefined");
+    }
+
+    @Test
+    public void testMapParallel() throws Exception {
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target, MappingContext context) {
+                target.name = context.getSourceIndex() + ":" + source.id + context.get("suffix");
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            handcraftMapper.setParallelExecutor(executor);
+            handcraftMapper.setParallelism(4);
+            handcraftMapper.setParallelismThreshold(1);
+            List<Source> sources = new ArrayList<Source>();
+            for (int i = 0; i < 103; i++) {
+                sources.add(new Source(i));
+            }
+            MappingContext context = new MappingContext("suffix", "!");
+            List<Target> targets = handcraftMapper.mapToArrayListParallel(sources, Target.class, context);
+            assertEquals(targets.size(), sources.size());
+            for (int i = 0; i < targets.size(); i++) {
+                assertEquals(targets.get(i).name, i + ":" + i + "!");
+            }
+            assertEquals(context.getSourceIndex(), -1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testMapParallelWithConcurrentContext() throws Exception {
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target, MappingContext context) {
+                context.put("last", source.id);
+                target.name = context.getSourceIndex() + ":" + source.id + context.get("suffix");
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        handcraftMapper.setParallelism(3);
+        handcraftMapper.setParallelismThreshold(1);
+        Source[] sources = new Source[10];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = new Source(i);
+        }
+        MappingContext context = new ConcurrentMappingContext("suffix", "!");
+        Target[] targets = handcraftMapper.mapParallel(sources, Target.class, "", context);
+        for (int i = 0; i < targets.length; i++) {
+            assertEquals(targets[i].name, i + ":" + i + "!");
+        }
+        assertFalse(context.containsKey("last"));
+        MappingContext fork = context.fork();
+        handcraftMapper.map(sources, Target.class, "", fork);
+        assertEquals(fork.get("last"), 9);
+        context.put("suffix", "?");
+        assertEquals(fork.get("suffix"), "!");
+        context.merge(fork);
+        assertEquals(context.get("last"), 9);
+        assertEquals(context.get("suffix"), "?");
+        handcraftMapper.shutdown();
+        assertTrue(((ExecutorService) handcraftMapper.getParallelExecutor()).isShutdown());
+        // the rest is mapped by the calling thread
+        targets = handcraftMapper.mapParallel(sources, Target.class, "", context);
+        assertEquals(targets[9].name, "9:9?");
+    }
+
+    @Test
+    public void testMergeAppliesOnlyChangesMadeToFork() throws Exception {
+        MappingContext context = new MappingContext("suffix", "!").put("prefix", "#");
+        MappingContext fork = context.fork();
+        fork.put("last", 9).remove("prefix");
+        context.put("suffix", "?");
+        context.merge(fork);
+        assertEquals(context.get("last"), 9);
+        assertEquals(context.get("suffix"), "?");
+        assertFalse(context.containsKey("prefix"));
+    }
+
+    @Test(expectedExceptions = MappingException.class)
+    public void testMapParallelWithFailure() throws Exception {
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new FailingMappingProvider());
+        handcraftMapper.setParallelism(2);
+        handcraftMapper.setParallelismThreshold(1);
+        handcraftMapper.mapParallel(new Source[]{new Source(1), new Source(2), new Source(3)}, Target.class);
+    }
+
+    @Test
+    public void testMapLazily() throws Exception {
+        final List<Integer> mapped = new ArrayList<Integer>();
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target, MappingContext context) {
+                mapped.add(source.id);
+                target.name = "Target #" + source.id + " (" + context.getSourceIndex() + ")";
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        List<Source> sources = Arrays.asList(new Source(1), new Source(2), new Source(3));
+        List<Target> targets = handcraftMapper.mapLazily(sources, Target.class);
+        assertEquals(targets.size(), 3);
+        assertTrue(mapped.isEmpty());
+        assertEquals(targets.get(2).name, "Target #3 (2)");
+        assertEquals(mapped, Arrays.asList(3));
+        assertNotSame(targets.get(2), targets.get(2));
+        List<Target> memoizedTargets = handcraftMapper.mapLazily(sources, Target.class, "", new MappingContext(),
+                true);
+        assertSame(memoizedTargets.get(1), memoizedTargets.get(1));
+        assertEquals(mapped, Arrays.asList(3, 3, 3, 2));
+    }
+
+    @Test
+    public void testMapIterableLazily() throws Exception {
+        final List<Integer> mapped = new ArrayList<Integer>();
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target) {
+                mapped.add(source.id);
+                target.name = "Target #" + source.id;
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        Iterable<Source> sources = Arrays.asList(new Source(1), new Source(2));
+        Iterable<Target> targets = handcraftMapper.mapLazily(sources, Target.class, "", null, true);
+        Iterator<Target> iterator = targets.iterator();
+        assertEquals(iterator.next().name, "Target #1");
+        assertEquals(mapped, Arrays.asList(1));
+        Iterator<Target> anotherIterator = targets.iterator();
+        assertEquals(anotherIterator.next().name, "Target #1");
+        assertEquals(anotherIterator.next().name, "Target #2");
+        assertFalse(anotherIterator.hasNext());
+        assertEquals(iterator.next().name, "Target #2");
+        assertEquals(mapped, Arrays.asList(1, 2));
+    }
+
+    @Test
+    public void testFailureOfTheGeneratedInvokerIsWrapped() throws Exception {
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new FailingMappingProvider());
+        try {
+            handcraftMapper.map(new Source(7), Target.class);
+            fail();
+        } catch (MappingException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testMapAsynchronously() throws Exception {
+        final CountDownLatch lastElementMapped = new CountDownLatch(1);
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target, MappingContext context)
+                    throws InterruptedException {
+                if (source.id == 0) {
+                    assertTrue(lastElementMapped.await(10, TimeUnit.SECONDS));
+                }
+                if (source.id == 9) {
+                    lastElementMapped.countDown();
+                }
+                target.name = context.getSourceIndex() + ":" + source.id + context.get("suffix");
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            AsyncMapper asyncMapper = new AsyncMapper(handcraftMapper, executor, 10);
+            assertEquals(asyncMapper.map(new Source(7), Target.class).get().name, "-1:7null");
+            List<Source> sources = new ArrayList<Source>();
+            for (int i = 0; i < 10; i++) {
+                sources.add(new Source(i));
+            }
+            List<Target> targets = asyncMapper.mapToArrayList(sources, Target.class,
+                    new MappingContext("suffix", "!")).get(10, TimeUnit.SECONDS);
+            assertEquals(targets.size(), sources.size());
+            for (int i = 0; i < targets.size(); i++) {
+                assertEquals(targets.get(i).name, i + ":" + i + "!");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testMapAsynchronouslyWithFailure() throws Exception {
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new FailingMappingProvider());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            new AsyncMapper(handcraftMapper, executor).mapToArrayList(new Source[]{new Source(1)}, Target.class).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof MappingException);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testMapAsynchronouslyWithTimeout() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target) throws InterruptedException {
+                latch.await();
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ArrayList<Target>> future = new AsyncMapper(handcraftMapper, executor, 2).
+                    mapToArrayList(new Source[]{new Source(1), new Source(2), new Source(3)}, Target.class);
+            try {
+                future.get(10, TimeUnit.MILLISECONDS);
+                fail();
+            } catch (TimeoutException e) {
+                assertTrue(future.isCancelled());
+            }
+        } finally {
+            latch.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testReuseDefaultContext() throws Exception {
+        final List<MappingContext> contexts = new ArrayList<MappingContext>();
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target, MappingContext context) {
+                contexts.add(context);
+                target.name = "Target #" + source.id + context.get("suffix", "");
+                context.put("suffix", "!");
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        handcraftMapper.setReuseDefaultContext(true);
+        assertEquals(handcraftMapper.map(new Source(1), Target.class).name, "Target #1");
+        assertEquals(handcraftMapper.map(new Source(2), Target.class).name, "Target #2");
+        assertSame(contexts.get(0), contexts.get(1));
+        handcraftMapper.setReuseDefaultContext(false);
+        handcraftMapper.map(new Source(3), Target.class);
+        assertNotSame(contexts.get(2), contexts.get(1));
+    }
+
+    @Test
+    public void testOverriddenDefaultContextIsUsed() throws Exception {
+        final List<MappingContext> contexts = new ArrayList<MappingContext>();
+        HandcraftMapper handcraftMapper = new HandcraftMapper() {
+
+            @Override
+            protected MappingContext getDefaultContext() {
+                MappingContext mappingContext = new MappingContext("suffix", "!");
+                contexts.add(mappingContext);
+                return mappingContext;
+            }
+        };
+        handcraftMapper.setReuseDefaultContext(true);
+        handcraftMapper.register(new Object() {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target) {
+                target.name = "Target #" + source.id;
+            }
+        });
+        assertEquals(handcraftMapper.map(new Source(1), Target.class).name, "Target #1");
+        assertEquals(contexts.size(), 1);
+    }
+
+    @Test
+    public void testMemoizeByIdentity() throws Exception {
+        final HandcraftMapper handcraftMapper = new HandcraftMapper();
+        final List<Integer> mapped = new ArrayList<Integer>();
+        class MappingProvider {
+            @Mapping
+            public void mapFromNodeToNodeDTO(Node source, NodeDTO target, MappingContext context) {
+                mapped.add(source.id);
+                target.id = source.id;
+                target.next = handcraftMapper.map(source.next, NodeDTO.class, context);
+            }
+        }
+        handcraftMapper.register(new MappingProvider());
+        Node first = new Node(1), second = new Node(2);
+        first.next = second;
+        second.next = first;
+        MappingContext context = new MappingContext(HandcraftMapper.HINT_MEMOIZE_BY_IDENTITY, true);
+        NodeDTO[] targets = handcraftMapper.map(new Node[]{first, second, first}, NodeDTO.class, context);
+        assertEquals(mapped, Arrays.asList(1, 2));
+        assertSame(targets[0].next, targets[1]);
+        assertSame(targets[1].next, targets[0]);
+        assertSame(targets[2], targets[0]);
+        assertEquals(context.keySet(), Collections.singleton(HandcraftMapper.HINT_MEMOIZE_BY_IDENTITY));
+        NodeDTO anotherTarget = handcraftMapper.map(first, NodeDTO.class, new MappingContext(
+                HandcraftMapper.HINT_MEMOIZE_BY_IDENTITY, true));
+        assertNotSame(anotherTarget, targets[0]);
+        // memo is shared by the chunks (each of which is mapped using its own fork of the context)
+        handcraftMapper.setParallelism(2);
+        handcraftMapper.setParallelismThreshold(1);
+        handcraftMapper.setParallelExecutor(new Executor() {
+
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        mapped.clear();
+        targets = handcraftMapper.mapParallel(new Node[]{new Node(3), first, first}, NodeDTO.class,
+                new MappingContext(HandcraftMapper.HINT_MEMOIZE_BY_IDENTITY, true));
+        assertEquals(mapped, Arrays.asList(1, 2, 3));
+        assertSame(targets[2], targets[1]);
+    }
+
+    @Test(expectedExceptions = IllegalMappingDefinitionException.class)
+    public void testAmbiguousMappingIsRejected() throws Exception {
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target) {
+            }
+            @Mapping
+            public void mapFromIdentifiedToTarget(Identified source, Target target) {
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.setFailOnAmbiguousMappings(true);
+        handcraftMapper.register(new MappingProvider());
+    }
+
+    @Test
+    public void testResultCaching() throws Exception {
+        final List<Integer> mapped = new ArrayList<Integer>();
+        class MappingProvider {
+            @Mapping(cacheable = true)
+            public void mapFromSourceToTarget(Source source, Target target) {
+                mapped.add(source.id);
+                target.name = "Target #" + source.id;
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        Source source = new Source(1);
+        Target target = handcraftMapper.map(source, Target.class);
+        assertSame(handcraftMapper.map(source, Target.class), target);
+        assertSame(handcraftMapper.map(new Source[]{source}, Target.class)[0], target);
+        assertNotSame(handcraftMapper.map(new Source(1), Target.class), target);
+        assertEquals(mapped, Arrays.asList(1, 1));
+        assertEquals(handcraftMapper.getResultCache().getHitCount(), 2);
+        assertEquals(handcraftMapper.getResultCache().getMissCount(), 2);
+    }
+
+    @Test
+    public void testResultCachingWithVersionExtractor() throws Exception {
+        final List<Integer> mapped = new ArrayList<Integer>();
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target) {
+                mapped.add(source.id);
+                target.name = "Target #" + source.id;
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        handcraftMapper.enableResultCaching(new HandcraftMapper.MappingKey(Source.class, Target.class, ""),
+                new SourceVersionExtractor() {
+
+                    @Override
+                    public Object getVersion(Object source) {
+                        return ((Source) source).id;
+                    }
+                });
+        Source source = new Source(1);
+        Target target = handcraftMapper.map(source, Target.class);
+        assertSame(handcraftMapper.map(source, Target.class), target);
+        source.id = 2;
+        assertEquals(handcraftMapper.map(source, Target.class).name, "Target #2");
+        assertEquals(mapped, Arrays.asList(1, 2));
+    }
+
+    @Test(expectedExceptions = MappingDefinitionNotFoundException.class)
+    public void testEnableResultCachingOfUndefinedMapping() throws Exception {
+        new HandcraftMapper().enableResultCaching(new HandcraftMapper.MappingKey(Source.class, Target.class, ""));
+    }
+
+    @Test(expectedExceptions = IllegalMappingDefinitionException.class)
+    public void testContextDependentMappingCannotBeCacheable() throws Exception {
+        class MappingProvider {
+            @Mapping(cacheable = true)
+            public void mapFromSourceToTarget(Source source, Target target, MappingContext mappingContext) {
+                target.name = "Target #" + source.id + mappingContext.get("suffix", "");
+            }
+        }
+        new HandcraftMapper().register(new MappingProvider());
+    }
+
+    @Test
+    public void testBulkMapping() throws Exception {
+        final List<Integer> batches = new ArrayList<Integer>();
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target) {
+                target.name = "Target #" + source.id;
+            }
+            @Mapping(bulk = true)
+            public List<Target> mapFromSourcesToTargets(List<Source> sources, MappingContext context) {
+                batches.add(sources.size());
+                assertEquals(context.getSourceIndex(), 0);
+                assertTrue(context.getSource() != null);
+                List<Target> result = new ArrayList<Target>(sources.size());
+                for (Source source : sources) {
+                    Target target = new Target();
+                    target.name = "Target #" + source.id + context.get("suffix", "");
+                    result.add(target);
+                }
+                return result;
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        MappingContext mappingContext = new MappingContext("suffix", "*");
+        List<Target> targets = handcraftMapper.mapToArrayList(Arrays.asList(new Source(1), new Source(2)),
+                Target.class, mappingContext);
+        assertEquals(mappingContext.getSourceIndex(), -1);
+        assertEquals(targets.size(), 2);
+        assertEquals(targets.get(0).name, "Target #1*");
+        assertEquals(targets.get(1).name, "Target #2*");
+        Target[] targetArray = handcraftMapper.map(new Source[]{new Source(3), new Source(4), new Source(5)},
+                Target.class);
+        assertEquals(targetArray[2].name, "Target #5");
+        Source source = new Source(6);
+        assertEquals(handcraftMapper.mapToHashMap(Arrays.asList(source), Target.class).get(source).name,
+                "Target #6");
+        assertEquals(handcraftMapper.map(new Source(7), Target.class).name, "Target #7");
+        assertEquals(batches, Arrays.asList(2, 3, 1));
+    }
+
+    @Test
+    public void testBulkMappingIsNotUsedIfElementMappingIsMoreSpecific() throws Exception {
+        class SourceSubclass extends Source {
+            SourceSubclass(int id) {
+                super(id);
+            }
+        }
+        final List<Integer> batches = new ArrayList<Integer>();
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target) {
+                target.name = "Target #" + source.id;
+            }
+            @Mapping
+            public void mapFromSourceSubclassToTarget(SourceSubclass source, Target target) {
+                target.name = "Subclass #" + ((Source) source).id;
+            }
+            @Mapping(bulk = true)
+            public List<Target> mapFromSourcesToTargets(List<Source> sources) {
+                batches.add(sources.size());
+                List<Target> result = new ArrayList<Target>(sources.size());
+                for (Source source : sources) {
+                    Target target = new Target();
+                    target.name = "Bulk #" + source.id;
+                    result.add(target);
+                }
+                return result;
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        Target[] targets = handcraftMapper.map(new Source[]{new Source(1), new SourceSubclass(2)}, Target.class);
+        assertEquals(targets[0].name, "Target #1");
+        assertEquals(targets[1].name, "Subclass #2");
+        targets = handcraftMapper.map(new Source[]{new Source(3), new Source(4)}, Target.class);
+        assertEquals(targets[1].name, "Bulk #4");
+        assertEquals(batches, Arrays.asList(2));
+    }
+
+    @Test
+    public void testFreeze() throws Exception {
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target) {
+                target.name = "Target #" + source.id;
+            }
+        }
+        class AnotherMappingProvider {
+            @Mapping("another")
+            public void mapFromSourceToTarget(Source source, Target target) {
+                target.name = "Another target #" + source.id;
+            }
+        }
+        class SourceSubclass extends Source {
+            SourceSubclass(int id) {
+                super(id);
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        handcraftMapper.freeze();
+        assertTrue(handcraftMapper.isFrozen());
+        assertEquals(handcraftMapper.map(new Source(1), Target.class).name, "Target #1");
+        assertEquals(handcraftMapper.map(new SourceSubclass(2), Target.class).name, "Target #2");
+        assertEquals(handcraftMapper.getLearnedMappings().size(), 1);
+        handcraftMapper.register(new AnotherMappingProvider());
+        assertEquals(handcraftMapper.map(new SourceSubclass(3), Target.class, "another").name, "Another target #3");
+        assertEquals(handcraftMapper.map(new SourceSubclass(4), Target.class).name, "Target #4");
+        handcraftMapper.unfreeze();
+        assertEquals(handcraftMapper.map(new SourceSubclass(5), Target.class).name, "Target #5");
+    }
+
+    @Test
+    public void testResolutionsAreLearned() throws Exception {
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target) {
+                target.name = "Target #" + source.id;
+            }
+        }
+        class SourceSubclass extends Source {
+            SourceSubclass(int id) {
+                super(id);
+            }
+        }
+        final List<Boolean> hierarchyWalks = new ArrayList<Boolean>();
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.setMappingListener(new MappingListener() {
+
+            @Override
+            public void onMapping(HandcraftMapper.MappingKey key, long elapsedNanos, Throwable failure) {
+            }
+
+            @Override
+            public void onResolution(HandcraftMapper.MappingKey requestedKey, HandcraftMapper.MappingKey resolvedKey,
+                                     boolean hierarchyWalk) {
+                hierarchyWalks.add(hierarchyWalk);
+            }
+        });
+        handcraftMapper.register(new MappingProvider());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(handcraftMapper.map(new SourceSubclass(i), Target.class).name, "Target #" + i);
+            assertFalse(handcraftMapper.allowsToMap(SourceSubclass.class, Source.class));
+        }
+        assertEquals(hierarchyWalks, Arrays.asList(true, true, false, false, false, false));
+        assertEquals(handcraftMapper.getRegisteredMappings().size(), 1);
+        assertEquals(handcraftMapper.getLearnedMappings(), Collections.singletonMap(
+                new HandcraftMapper.MappingKey(SourceSubclass.class, Target.class, ""),
+                new HandcraftMapper.MappingKey(Source.class, Target.class, "")));
+        assertEquals(handcraftMapper.clearLearnedMappings(), 1);
+        assertTrue(handcraftMapper.getLearnedMappings().isEmpty());
+        handcraftMapper.map(new SourceSubclass(3), Target.class);
+        handcraftMapper.freeze();
+        // learned mapping is compiled into the frozen registry (and so survives the loss of the resolution cache)
+        handcraftMapper.setMaximumLearnedMappings(16);
+        assertEquals(handcraftMapper.map(new SourceSubclass(4), Target.class).name, "Target #4");
+        assertEquals(hierarchyWalks.subList(6, hierarchyWalks.size()), Arrays.asList(true, false));
+    }
+
+    @Test
+    public void testInterfaceMapping() throws Exception {
+        class MappingProvider {
+            @Mapping
+            public void mapFromIdentifiedToTarget(Identified source, Target target) {
+                target.name = "Identified #" + source.getId();
+            }
+
+            @Mapping
+            public void mapFromObjectToTarget(Object source, Target target) {
+                target.name = "Object";
+            }
+        }
+        class IdentifiedSource extends Source implements Identified {
+            IdentifiedSource(int id) {
+                super(id);
+            }
+
+            @Override
+            public int getId() {
+                return 7;
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        assertEquals(handcraftMapper.map(new IdentifiedSource(1), Target.class).name, "Identified #7");
+        assertEquals(handcraftMapper.map(new Source(1), Target.class).name, "Object");
+        assertTrue(handcraftMapper.allowsToMap(Identified.class, Target.class));
+    }
+
+    @Test
+    public void testOverlayMappingOfTargetSubclass() throws Exception {
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target) {
+                target.name = "Target #" + source.id;
+            }
+        }
+        class TargetSubclass extends Target {
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        Target target = handcraftMapper.map(new Source(1), new TargetSubclass());
+        assertEquals(target.name, "Target #1");
+        assertFalse(handcraftMapper.allowsToMap(Source.class, TargetSubclass.class));
+        try {
+            handcraftMapper.map(new Source(2), TargetSubclass.class);
+            fail();
+        } catch (MappingDefinitionNotFoundException e) {
+            // target class has to match exactly unless target is given
+        }
+    }
+
+    @Test
+    public void testMappingOfHeterogeneousCollection() throws Exception {
+        class SourceSubclass extends Source {
+            SourceSubclass(int id) {
+                super(id);
+            }
+        }
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target) {
+                target.name = "Target #" + source.id;
+            }
+
+            @Mapping
+            public void mapFromSourceSubclassToTarget(SourceSubclass source, Target target) {
+                target.name = "Subclass target #" + ((Source) source).id;
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        List<Source> sources = new ArrayList<Source>();
+        List<String> expectedNames = new ArrayList<String>();
+        for (int i = 0; i < 3; i++) {
+            sources.add(new SourceSubclass(i));
+            expectedNames.add("Subclass target #" + i);
+            sources.add(new Source(i));
+            expectedNames.add("Target #" + i);
+            for (int j = 0; j < 10; j++) { // more classes than inline cache is able to hold
+                sources.add(new Source(j) {});
+                expectedNames.add("Target #" + j);
+            }
+        }
+        @SuppressWarnings("deprecation")
+        MappingContext mappingContext = new MappingContext(HandcraftMapper.HINT_REUSE_MAPPING, Boolean.TRUE);
+        for (Target[] targets : Arrays.asList(handcraftMapper.map(sources, Target.class),
+                handcraftMapper.map(sources, Target.class, mappingContext),
+                handcraftMapper.map(sources.toArray(), Target.class, mappingContext),
+                handcraftMapper.mapLazily(sources, Target.class).toArray(new Target[sources.size()]))) {
+            List<String> names = new ArrayList<String>();
+            for (Target target : targets) {
+                names.add(target.name);
+            }
+            assertEquals(names, expectedNames);
+        }
+    }
+
+    @Test
+    public void testRegisteredInstantiator() throws Exception {
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target) {
+                target.name += " #" + source.id;
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        assertEquals(handcraftMapper.map(new Source(1), Target.class).name, "null #1");
+        handcraftMapper.registerInstantiator(Target.class, new Instantiator<Target>() {
+
+            @Override
+            public Target newInstance() throws Exception {
+                Target target = new Target();
+                target.name = "Instantiated";
+                return target;
+            }
+        });
+        assertEquals(handcraftMapper.map(new Source(2), Target.class).name, "Instantiated #2");
+        handcraftMapper.setInstantiatorStrategy(new ReflectiveInstantiatorStrategy());
+        assertEquals(handcraftMapper.map(new Source(3), Target.class).name, "Instantiated #3");
+    }
+
+    @Test
+    public void testInstantiatorIsCreatedOncePerTargetClass() throws Exception {
+        class MappingProvider {
+            @Mapping
+            public void mapFromSourceToTarget(Source source, Target target) {
+                target.name = "Target #" + source.id;
+            }
+        }
+        final AtomicInteger instantiatorsCreated = new AtomicInteger();
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        handcraftMapper.setInstantiatorStrategy(new InstantiatorStrategy() {
+
+            @Override
+            public <T> Instantiator<T> getInstantiator(Class<T> type) {
+                instantiatorsCreated.incrementAndGet();
+                try {
+                    Thread.sleep(50); // so that concurrent requests have a chance to pile up
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new ReflectiveInstantiatorStrategy().getInstantiator(type);
+            }
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            AsyncMapper asyncMapper = new AsyncMapper(handcraftMapper, executor);
+            List<Future<Target>> targets = new ArrayList<Future<Target>>();
+            for (int i = 0; i < 10; i++) {
+                targets.add(asyncMapper.map(new Source(i), Target.class));
+            }
+            for (int i = 0; i < 10; i++) {
+                assertEquals(targets.get(i).get(10, TimeUnit.SECONDS).name, "Target #" + i);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(instantiatorsCreated.get(), 1);
+    }
+
+    @Test
+    public void testLearnedMappingsAreBounded() throws Exception {
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.setMaximumLearnedMappings(1);
+        handcraftMapper.register(new ProjectionMappingProvider());
+        assertEquals(handcraftMapper.map(new Source(1) {}, long.class), (Long) 1L);
+        assertEquals(handcraftMapper.map(new Source(2) {}, long.class), (Long) 2L);
+        assertEquals(handcraftMapper.getLearnedMappings().size(), 1);
+    }
+
+    @Test
+    public void testProjection() throws Exception {
+        class MappingProvider {
+            @Mapping("id")
+            public int idOf(Source source) {
+                return source.id;
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        handcraftMapper.register(new ProjectionMappingProvider());
+        List<Source> sources = Arrays.asList(new Source(1), new Source(2), new Source(3));
+        assertEquals(handcraftMapper.mapToLongArray(sources), new long[]{1, 2, 3});
+        assertEquals(handcraftMapper.mapToIntArray(sources, "id"), new int[]{1, 2, 3});
+        double[] weights = handcraftMapper.mapToDoubleArray(sources, new MappingContext("factor", 0.5));
+        assertEquals(weights.length, 3);
+        assertEquals(weights[2], 1.5);
+        assertEquals(handcraftMapper.mapToLongArray(new ArrayList<Object>()).length, 0);
+        assertEquals(handcraftMapper.map(new Source(4), long.class), (Long) 4L);
+    }
+
+    @Test(expectedExceptions = MappingException.class)
+    public void testProjectionOfNull() throws Exception {
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new ProjectionMappingProvider());
+        handcraftMapper.mapToLongArray(Arrays.asList(new Source(1), null));
+    }
+
+    @Test(expectedExceptions = MappingException.class)
+    public void testBulkMappingProducingWrongNumberOfTargets() throws Exception {
+        class MappingProvider {
+            @Mapping(bulk = true)
+            public List<Target> mapFromSourcesToTargets(List<Source> sources) {
+                return new ArrayList<Target>();
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        handcraftMapper.map(new Source[]{new Source(1)}, Target.class);
+    }
+
+    @Test
+    public void testListMappingIsNotBulkUnlessRequested() throws Exception {
+        class MappingProvider {
+            @Mapping
+            public List<Target> mapFromSourcesToTargets(List<Source> sources) {
+                List<Target> result = new ArrayList<Target>();
+                for (Source source : sources) {
+                    Target target = new Target();
+                    target.name = "Target #" + source.id;
+                    result.add(target);
+                }
+                return result;
+            }
+        }
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        assertEquals(handcraftMapper.getRegisteredMappings(), Arrays.asList(
+                new HandcraftMapper.MappingKey(List.class, List.class, "")));
+        List targets = handcraftMapper.map((Object) Arrays.asList(new Source(1)), List.class);
+        assertEquals(((Target) targets.get(0)).name, "Target #1");
+        assertFalse(handcraftMapper.allowsToMap(Source.class, Target.class));
+    }
+
+    @Test(expectedExceptions = IllegalMappingDefinitionException.class)
+    public void testInvalidBulkMapping() throws Exception {
+        class MappingProvider {
+            @Mapping(bulk = true)
+            public void mapFromSourceToTarget(Source source, Target target) {
+            }
+        }
+        new HandcraftMapper().register(new MappingProvider());
+    }
+
+    public static class ProjectionMappingProvider {
+
+        @Mapping
+        public long idOf(Source source) {
+            return source.id;
+        }
+
+        @Mapping
+        public double weightOf(Source source, MappingContext context) {
+            return source.id * context.<Double>get("factor");
+        }
+    }
+
+    public static class FailingMappingProvider {
+
+        @Mapping
+        public void mapFromSourceToTarget(Source source, Target target) {
+            throw new IllegalStateException();
+        }
+    }
+
+    public interface Identified {
+
+        int getId();
+    }
+
     public static class Source {
 
         private int id;
@@ -84,6 +983,22 @@ public class HandcraftMapperTest {
         private String name;
     }
 
+    public static class Node {
+
+        private int id;
+        private Node next;
+
+        public Node(int id) {
+            this.id = id;
+        }
+    }
+
+    public static class NodeDTO {
+
+        private int id;
+        private NodeDTO next;
+    }
+
     public static class ImmutableTarget {
 
         private String name;
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class MappingDispatchTableTest {
+
+    @Test
+    public void testGet() throws Exception {
+        MappingDispatchTable<String> table = new MappingDispatchTable<String>();
+        table.put(Integer.class, String.class, "", "Integer -> String");
+        table.put(Integer.class, Long.class, "", "Integer -> Long");
+        table.put(Integer.class, Long.class, "named", "Integer -> Long (named)");
+        table.put(Long.class, String.class, "", "Long -> String");
+        assertEquals(table.get(Integer.class, String.class, ""), "Integer -> String");
+        assertEquals(table.get(Integer.class, Long.class, ""), "Integer -> Long");
+        assertEquals(table.get(Integer.class, Long.class, new String("named")), "Integer -> Long (named)");
+        assertEquals(table.get(Long.class, String.class, ""), "Long -> String");
+        assertNull(table.get(Long.class, Long.class, ""));
+        assertNull(table.get(Integer.class, String.class, "named"));
+    }
+
+    @Test
+    public void testPutOverridesExistingEntry() throws Exception {
+        MappingDispatchTable<String> table = new MappingDispatchTable<String>();
+        table.put(Integer.class, String.class, "", "first");
+        table.put(Integer.class, String.class, new String(""), "second");
+        assertEquals(table.get(Integer.class, String.class, ""), "second");
+        table.clear();
+        assertNull(table.get(Integer.class, String.class, ""));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import com.github.shyiko.mappify.api.MappingException;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class MappingMetricsTest {
+
+    @Test
+    public void testMappingStatistics() throws Exception {
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        MappingMetrics metrics = new MappingMetrics();
+        handcraftMapper.setMappingListener(metrics);
+        handcraftMapper.map(new Source[]{new Source(1), new Source(2), new Source(3)}, Target.class);
+        try {
+            handcraftMapper.map(new Source(-1), Target.class);
+            fail();
+        } catch (MappingException e) {
+            // expected
+        }
+        HandcraftMapper.MappingKey key = new HandcraftMapper.MappingKey(Source.class, Target.class, "");
+        MappingStatistics statistics = metrics.getStatistics(key);
+        assertEquals(statistics.getInvocationCount(), 4);
+        assertEquals(statistics.getErrorCount(), 1);
+        assertTrue(statistics.getTotalNanos() > 0);
+        assertTrue(statistics.getLatencyPercentile(0.5) > 0);
+        assertEquals(metrics.getStatistics().size(), 1);
+    }
+
+    @Test
+    public void testResolutionStatistics() throws Exception {
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider());
+        MappingMetrics metrics = new MappingMetrics();
+        handcraftMapper.setMappingListener(metrics);
+        handcraftMapper.map(new Source(1), Target.class);
+        handcraftMapper.map(new Source(1), Target.class); // served by the dispatch table
+        handcraftMapper.map(new SourceSubclass(2), Target.class);
+        handcraftMapper.map(new SourceSubclass(3), Target.class); // served by the resolution cache
+        handcraftMapper.allowsToMap(SourceSubclass.class, Target.class);
+        handcraftMapper.allowsToMap(Target.class, Source.class);
+        assertEquals(metrics.getRegisteredKeyHits(), 2);
+        assertEquals(metrics.getHierarchyWalks(), 1);
+        assertEquals(metrics.getLearnedKeyHits(), 2);
+        assertEquals(metrics.getMisses(), 1);
+        metrics.reset();
+        assertEquals(metrics.getRegisteredKeyHits(), 0);
+        assertEquals(metrics.getStatistics().size(), 0);
+    }
+
+    public static class MappingProvider {
+
+        @Mapping
+        public void mapFromSourceToTarget(Source source, Target target) {
+            if (source.id < 0) {
+                throw new IllegalArgumentException();
+            }
+        }
+    }
+
+    public static class Source {
+
+        private final int id;
+
+        public Source(int id) {
+            this.id = id;
+        }
+    }
+
+    public static class SourceSubclass extends Source {
+
+        public SourceSubclass(int id) {
+            super(id);
+        }
+    }
+
+    public static class Target {
+    }
+}
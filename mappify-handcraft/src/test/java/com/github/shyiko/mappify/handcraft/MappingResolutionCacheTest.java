@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class MappingResolutionCacheTest {
+
+    private static final Class[] CLASSES = {Object.class, String.class, Integer.class, Long.class, Double.class,
+            Map.class, HashMap.class, StringBuilder.class, Thread.class, Class.class};
+
+    @Test
+    public void testGetPut() throws Exception {
+        MappingResolutionCache<String> cache = new MappingResolutionCache<String>(16);
+        cache.put(String.class, Object.class, "", "a");
+        cache.put(String.class, Object.class, "named", "b");
+        cache.put(String.class, Object.class, "", "c");
+        assertEquals(cache.get(String.class, Object.class, ""), "c");
+        // mapping name is deliberately not interned
+        assertEquals(cache.get(String.class, Object.class, new String("named")), "b");
+        assertNull(cache.get(String.class, Integer.class, ""));
+        assertNull(cache.get(Object.class, Object.class, ""));
+        assertEquals(cache.size(), 2);
+        assertEquals(cache.toMap().get(new HandcraftMapper.MappingKey(String.class, Object.class, "named")), "b");
+        assertEquals(cache.clear(), 2);
+        assertNull(cache.get(String.class, Object.class, ""));
+    }
+
+    @Test
+    public void testSizeIsBounded() throws Exception {
+        MappingResolutionCache<String> cache = new MappingResolutionCache<String>(5);
+        for (Class sourceClass : CLASSES) {
+            for (Class targetClass : CLASSES) {
+                cache.put(sourceClass, targetClass, "", sourceClass.getSimpleName() + "->" +
+                        targetClass.getSimpleName());
+                assertEquals(cache.get(sourceClass, targetClass, ""), sourceClass.getSimpleName() + "->" +
+                        targetClass.getSimpleName());
+            }
+        }
+        assertEquals(cache.size(), 5);
+        assertEquals(cache.toMap().size(), 5);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class MappingResultCacheTest {
+
+    @Test
+    public void testGet() throws Exception {
+        MappingResultCache cache = new MappingResultCache(10);
+        cache.put("key", "value");
+        assertEquals(cache.get("key"), "value");
+        assertNull(cache.get("missing"));
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 1);
+    }
+
+    @Test
+    public void testEvictionKeepsFrequentlyUsedEntries() throws Exception {
+        MappingResultCache cache = new MappingResultCache(4);
+        cache.put("hot", "value");
+        for (int i = 0; i < 100; i++) {
+            cache.get("hot");
+            cache.put(i, i);
+            assertEquals(cache.size(), Math.min(i + 2, 4));
+        }
+        assertEquals(cache.get("hot"), "value");
+        assertEquals(cache.getEvictionCount(), 97);
+    }
+
+    @Test
+    public void testZeroMaximumSizeDisablesCaching() throws Exception {
+        MappingResultCache cache = new MappingResultCache(0);
+        cache.put("key", "value");
+        assertNull(cache.get("key"));
+        assertEquals(cache.size(), 0);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.handcraft;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class MappingTracerTest {
+
+    @Test
+    public void testNestedMappingsAreRecorded() throws Exception {
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider(handcraftMapper));
+        CollectingTraceListener listener = new CollectingTraceListener();
+        handcraftMapper.setMappingTracer(new MappingTracer(0, TimeUnit.NANOSECONDS, listener));
+        handcraftMapper.map(new Order(new Item(), new Item(), new Item()), OrderDTO.class);
+        handcraftMapper.map(new Order(new Item()), OrderDTO.class);
+        assertEquals(listener.traces.size(), 2);
+        MappingTrace trace = listener.traces.get(0);
+        assertEquals(trace.getKey(), new HandcraftMapper.MappingKey(Order.class, OrderDTO.class, ""));
+        assertFalse(trace.isBulk());
+        assertEquals(trace.getInvocationCount(), 1);
+        assertTrue(trace.getDescription().contains(MappingProvider.class.getName()));
+        assertEquals(trace.getChildren().size(), 1);
+        MappingTrace bulkTrace = trace.getChildren().get(0);
+        assertTrue(bulkTrace.isBulk());
+        assertEquals(bulkTrace.getKey(), new HandcraftMapper.MappingKey(Item.class, ItemDTO.class, ""));
+        assertEquals(bulkTrace.getElementCount(), 3);
+        assertEquals(bulkTrace.getChildren().size(), 1);
+        MappingTrace itemTrace = bulkTrace.getChildren().get(0);
+        assertEquals(itemTrace.getInvocationCount(), 3);
+        assertEquals(itemTrace.getChildren().size(), 0);
+        assertNull(itemTrace.getFailure());
+        assertTrue(trace.getElapsedNanos() >= bulkTrace.getElapsedNanos());
+        assertTrue(bulkTrace.getElapsedNanos() >= itemTrace.getElapsedNanos());
+        assertTrue(trace.toString().contains("(3 elements)"));
+    }
+
+    @Test
+    public void testTracesBelowThresholdAreNotReported() throws Exception {
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        handcraftMapper.register(new MappingProvider(handcraftMapper));
+        CollectingTraceListener listener = new CollectingTraceListener();
+        handcraftMapper.setMappingTracer(new MappingTracer(1, TimeUnit.MINUTES, listener));
+        handcraftMapper.map(new Order(new Item(), new Item()), OrderDTO.class);
+        handcraftMapper.map(Arrays.asList(new Item(), new Item()), ItemDTO.class);
+        assertEquals(listener.traces.size(), 0);
+    }
+
+    private static class CollectingTraceListener implements MappingTraceListener {
+
+        private final List<MappingTrace> traces = new ArrayList<MappingTrace>();
+
+        @Override
+        public void onSlowMapping(MappingTrace trace) {
+            traces.add(trace);
+        }
+    }
+
+    public static class MappingProvider {
+
+        private final HandcraftMapper handcraftMapper;
+
+        public MappingProvider(HandcraftMapper handcraftMapper) {
+            this.handcraftMapper = handcraftMapper;
+        }
+
+        @Mapping
+        public void mapOrder(Order order, OrderDTO orderDTO) {
+            orderDTO.items = handcraftMapper.mapToArrayList(order.items, ItemDTO.class);
+        }
+
+        @Mapping
+        public void mapItem(Item item, ItemDTO itemDTO) {
+        }
+    }
+
+    public static class Order {
+
+        private final List<Item> items;
+
+        public Order(Item... items) {
+            this.items = Arrays.asList(items);
+        }
+    }
+
+    public static class Item {
+    }
+
+    public static class OrderDTO {
+
+        private List<ItemDTO> items;
+    }
+
+    public static class ItemDTO {
+    }
+}
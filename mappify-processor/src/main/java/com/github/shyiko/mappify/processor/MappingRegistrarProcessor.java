@@ -0,0 +1,540 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Annotation processor which generates {@code com.github.shyiko.mappify.handcraft.MappingRegistrar} for each class
+ * declaring {@code com.github.shyiko.mappify.handcraft.Mapping}-annotated methods. Generated registrar calls
+ * mapping methods directly (with mapping keys precomputed), which means that
+ * {@code HandcraftMapper.register(Object)} needs neither to scan provider class nor to invoke mapping methods
+ * through reflection.
+ * <p/>
+ * Methods which don't denote a valid mapping are reported as compilation errors. Providers which cannot be called
+ * from the generated code (e.g. private classes or methods) are skipped (with a note), leaving them to the
+ * reflection-based registration.
+ * <p/>
+ * In addition, providers annotated with {@code com.github.shyiko.mappify.handcraft.spring.MappingProvider} are listed
+ * in the {@link #INDEX_LOCATION}, so that mappify-handcraft-spring could discover them without inspecting each and
+ * every bean.
+ * Index is written once processing is over (merged with the one left by the previous (incremental) compilation).
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class MappingRegistrarProcessor extends AbstractProcessor {
+
+    private static final String MAPPING_ANNOTATION = "com.github.shyiko.mappify.handcraft.Mapping";
+    private static final String MAPPING_PROVIDER_ANNOTATION =
+            "com.github.shyiko.mappify.handcraft.spring.MappingProvider";
+    private static final String MAPPING_CONTEXT = "com.github.shyiko.mappify.api.MappingContext";
+    private static final String HANDCRAFT_PACKAGE = "com.github.shyiko.mappify.handcraft";
+    private static final String REGISTRAR_CLASS_NAME_SUFFIX = "$$MappingRegistrar";
+    /**
+     * return type -&gt; name of the GeneratedMappingInvoker method to override (so that result isn't boxed)
+     */
+    private static final Map<TypeKind, String> PRIMITIVE_INVOKE_NAMES = new EnumMap<TypeKind, String>(TypeKind.class);
+
+    static {
+        PRIMITIVE_INVOKE_NAMES.put(TypeKind.LONG, "invokeForLong");
+        PRIMITIVE_INVOKE_NAMES.put(TypeKind.INT, "invokeForInt");
+        PRIMITIVE_INVOKE_NAMES.put(TypeKind.DOUBLE, "invokeForDouble");
+    }
+
+    /**
+     * Each line of the index is a binary name of the provider. Lines starting with # are comments.
+     */
+    public static final String INDEX_LOCATION = "META-INF/mappify.index";
+
+    /**
+     * binary names of the providers processed so far
+     */
+    private final Set<String> processedProviders = new HashSet<String>();
+    /**
+     * binary names of the processed providers which are to be indexed
+     */
+    private final Set<String> index = new LinkedHashSet<String>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(MAPPING_ANNOTATION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement mappingAnnotation = processingEnv.getElementUtils().getTypeElement(MAPPING_ANNOTATION);
+        if (mappingAnnotation == null) {
+            return false;
+        }
+        Map<TypeElement, List<ExecutableElement>> methodsByProvider =
+                new LinkedHashMap<TypeElement, List<ExecutableElement>>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(mappingAnnotation)) {
+            if (element.getKind() != ElementKind.METHOD) {
+                continue;
+            }
+            TypeElement provider = (TypeElement) element.getEnclosingElement();
+            List<ExecutableElement> methods = methodsByProvider.get(provider);
+            if (methods == null) {
+                methodsByProvider.put(provider, methods = new ArrayList<ExecutableElement>());
+            }
+            methods.add((ExecutableElement) element);
+        }
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : methodsByProvider.entrySet()) {
+            process(entry.getKey(), entry.getValue(), mappingAnnotation);
+        }
+        if (roundEnv.processingOver() && !processedProviders.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private void process(TypeElement provider, List<ExecutableElement> methods, TypeElement mappingAnnotation) {
+        Messager messager = processingEnv.getMessager();
+        boolean valid = true;
+        for (ExecutableElement method : methods) {
+            if (!isValidMapping(method)) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                        "Method is annotated with @Mapping but doesn't denote a valid mapping", method);
+                valid = false;
+            } else if (Boolean.TRUE.equals(getAnnotationValue(method, mappingAnnotation, "cacheable")) &&
+                    isMappingContext(method.getParameters().get(method.getParameters().size() - 1).asType())) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                        "Mapping accepting MappingContext cannot be cacheable", method);
+                valid = false;
+            } else if (isBulk(method, mappingAnnotation)) {
+                if (getBulkMappingElementTypes(method) == null) {
+                    messager.printMessage(Diagnostic.Kind.ERROR, "Method is annotated with @Mapping(bulk = true) " +
+                            "but doesn't denote a valid bulk mapping", method);
+                    valid = false;
+                } else if (Boolean.TRUE.equals(getAnnotationValue(method, mappingAnnotation, "cacheable"))) {
+                    messager.printMessage(Diagnostic.Kind.ERROR, "Bulk mapping cannot be cacheable", method);
+                    valid = false;
+                }
+            }
+        }
+        if (!valid) {
+            return;
+        }
+        String binaryName = processingEnv.getElementUtils().getBinaryName(provider).toString();
+        processedProviders.add(binaryName);
+        if (isAnnotatedAsMappingProvider(provider)) {
+            index.add(binaryName);
+        }
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(provider);
+        if (!isAccessible(provider, packageElement)) {
+            messager.printMessage(Diagnostic.Kind.NOTE, provider + " is not accessible from the generated code. " +
+                    "Mapping registrar won't be generated", provider);
+            return;
+        }
+        for (ExecutableElement method : methods) {
+            if (!isAccessible(method, packageElement)) {
+                messager.printMessage(Diagnostic.Kind.NOTE, "Method is not accessible from the generated code. " +
+                        "Mapping registrar for " + provider + " won't be generated", method);
+                return;
+            }
+        }
+        String registrarName = binaryName + REGISTRAR_CLASS_NAME_SUFFIX;
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(registrarName, provider);
+            Writer writer = sourceFile.openWriter();
+            try {
+                writer.write(generateRegistrar(provider, packageElement, binaryName,
+                        registrarName.substring(registrarName.lastIndexOf('.') + 1), methods, mappingAnnotation));
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Failed to generate " + registrarName + ": " + e, provider);
+        }
+    }
+
+    /**
+     * Compile-time counterpart of HandcraftMapper.isValidMapping(...).
+     */
+    private boolean isValidMapping(ExecutableElement method) {
+        List<? extends VariableElement> parameters = method.getParameters();
+        int upperBound = method.getReturnType().getKind() == TypeKind.VOID ? 3 : 2,
+            numberOfParameters = parameters.size();
+        return (numberOfParameters == upperBound - 1 && !isMappingContext(parameters.get(upperBound - 2).asType())) ||
+               (numberOfParameters == upperBound && isMappingContext(parameters.get(upperBound - 1).asType()));
+    }
+
+    /**
+     * @return true if type (or any of its superclasses, as annotation is {@code @Inherited}) is annotated with
+     * {@link #MAPPING_PROVIDER_ANNOTATION} (matched by name, as mappify-handcraft-spring is not necessarily on the
+     * classpath)
+     */
+    private boolean isAnnotatedAsMappingProvider(TypeElement type) {
+        for (TypeElement element = type; element != null; ) {
+            for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+                if (((TypeElement) annotationMirror.getAnnotationType().asElement()).getQualifiedName()
+                        .contentEquals(MAPPING_PROVIDER_ANNOTATION)) {
+                    return true;
+                }
+            }
+            TypeMirror superclass = element.getSuperclass();
+            element = superclass.getKind() == TypeKind.DECLARED ?
+                    (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return false;
+    }
+
+    private boolean isBulk(ExecutableElement method, TypeElement mappingAnnotation) {
+        return Boolean.TRUE.equals(getAnnotationValue(method, mappingAnnotation, "bulk"));
+    }
+
+    /**
+     * Compile-time counterpart of HandcraftMapper.getBulkMappingElementTypes(...).
+     * @return {source element type, target element type} if method has a signature of the bulk mapping, null
+     * otherwise
+     */
+    private TypeMirror[] getBulkMappingElementTypes(ExecutableElement method) {
+        if (method.getParameters().isEmpty()) {
+            return null;
+        }
+        TypeMirror sourceElementType = getListElementType(method.getParameters().get(0).asType()),
+                   targetElementType = getListElementType(method.getReturnType());
+        return sourceElementType == null || targetElementType == null ?
+                null : new TypeMirror[]{sourceElementType, targetElementType};
+    }
+
+    private TypeMirror getListElementType(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        DeclaredType declaredType = (DeclaredType) type;
+        if (!((TypeElement) declaredType.asElement()).getQualifiedName().contentEquals("java.util.List") ||
+                declaredType.getTypeArguments().size() != 1) {
+            return null;
+        }
+        TypeMirror typeArgument = declaredType.getTypeArguments().get(0);
+        return typeArgument.getKind() == TypeKind.DECLARED ? typeArgument : null;
+    }
+
+    /**
+     * @return {source type, target type} of the mapping key (element types in case of bulk mapping)
+     */
+    private TypeMirror[] getKeyTypes(ExecutableElement method, TypeElement mappingAnnotation) {
+        if (isBulk(method, mappingAnnotation)) {
+            return getBulkMappingElementTypes(method);
+        }
+        return new TypeMirror[]{method.getParameters().get(0).asType(),
+                method.getReturnType().getKind() != TypeKind.VOID ?
+                        method.getReturnType() : method.getParameters().get(1).asType()};
+    }
+
+    private boolean isMappingContext(TypeMirror type) {
+        TypeElement mappingContext = processingEnv.getElementUtils().getTypeElement(MAPPING_CONTEXT);
+        return mappingContext != null && type.getKind() == TypeKind.DECLARED &&
+                processingEnv.getTypeUtils().isAssignable(type, mappingContext.asType());
+    }
+
+    private boolean isAccessible(ExecutableElement method, PackageElement packageElement) {
+        if (method.getModifiers().contains(Modifier.PRIVATE) ||
+                !isAccessible(method.getReturnType(), packageElement)) {
+            return false;
+        }
+        for (VariableElement parameter : method.getParameters()) {
+            if (!isAccessible(parameter.asType(), packageElement)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isAccessible(TypeMirror type, PackageElement packageElement) {
+        Types typeUtils = processingEnv.getTypeUtils();
+        TypeMirror erasure = typeUtils.erasure(type);
+        while (erasure.getKind() == TypeKind.ARRAY) {
+            erasure = ((ArrayType) erasure).getComponentType();
+        }
+        return erasure.getKind() != TypeKind.DECLARED ||
+                isAccessible((TypeElement) ((DeclaredType) erasure).asElement(), packageElement);
+    }
+
+    private boolean isAccessible(TypeElement type, PackageElement packageElement) {
+        Elements elementUtils = processingEnv.getElementUtils();
+        for (Element element = type; element.getKind() != ElementKind.PACKAGE;
+             element = element.getEnclosingElement()) {
+            if (!(element instanceof TypeElement) ||
+                    ((TypeElement) element).getNestingKind() == NestingKind.LOCAL ||
+                    ((TypeElement) element).getNestingKind() == NestingKind.ANONYMOUS) {
+                return false;
+            }
+            Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || (!modifiers.contains(Modifier.PUBLIC) &&
+                    !elementUtils.getPackageOf(element).equals(packageElement))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String generateRegistrar(TypeElement provider, PackageElement packageElement, String binaryName,
+                                     String registrarSimpleName, List<ExecutableElement> methods,
+                                     TypeElement mappingAnnotation) {
+        Types typeUtils = processingEnv.getTypeUtils();
+        String providerType = typeUtils.erasure(provider.asType()).toString();
+        StringBuilder sb = new StringBuilder();
+        if (!packageElement.isUnnamed()) {
+            sb.append("package ").append(packageElement.getQualifiedName()).append(";\n\n");
+        }
+        sb.append("/**\n * Generated by ").append(getClass().getName()).append(". Do not edit.\n */\n");
+        sb.append("public final class ").append(registrarSimpleName).append(" implements ")
+          .append(HANDCRAFT_PACKAGE).append(".MappingRegistrar {\n\n");
+        for (int i = 0; i < methods.size(); i++) {
+            ExecutableElement method = methods.get(i);
+            TypeMirror[] keyTypes = getKeyTypes(method, mappingAnnotation);
+            sb.append("    private static final ").append(HANDCRAFT_PACKAGE).append(".HandcraftMapper.MappingKey KEY_")
+              .append(i).append(" =\n        new ").append(HANDCRAFT_PACKAGE).append(".HandcraftMapper.MappingKey(")
+              .append(typeUtils.erasure(keyTypes[0])).append(".class, ")
+              .append(typeUtils.erasure(keyTypes[1])).append(".class, ")
+              .append(stringLiteral((String) getAnnotationValue(method, mappingAnnotation, "value"))).append(");\n");
+        }
+        sb.append("\n    @Override\n    public java.util.Collection<").append(HANDCRAFT_PACKAGE)
+          .append(".HandcraftMapper.MappingKey> register(\n            ").append(HANDCRAFT_PACKAGE)
+          .append(".HandcraftMapper handcraftMapper, Object mappingProvider) {\n");
+        sb.append("        ").append(providerType).append(" provider = (").append(providerType)
+          .append(") mappingProvider;\n");
+        sb.append("        java.util.List<").append(HANDCRAFT_PACKAGE).append(".HandcraftMapper.MappingKey> result =\n")
+          .append("            new java.util.ArrayList<").append(HANDCRAFT_PACKAGE)
+          .append(".HandcraftMapper.MappingKey>(").append(methods.size()).append(");\n");
+        for (int i = 0; i < methods.size(); i++) {
+            ExecutableElement method = methods.get(i);
+            List<? extends VariableElement> parameters = method.getParameters();
+            boolean returnsTarget = method.getReturnType().getKind() != TypeKind.VOID;
+            boolean requiresContext = isMappingContext(parameters.get(parameters.size() - 1).asType());
+            boolean bulk = isBulk(method, mappingAnnotation);
+            sb.append("        result.add(handcraftMapper.").append(bulk ? "registerBulk" : "register")
+              .append("(provider, KEY_").append(i).append(",\n")
+              .append("            new ").append(HANDCRAFT_PACKAGE).append(".GeneratedMappingInvoker(provider) {\n\n")
+              .append("                @Override\n")
+              .append("                @SuppressWarnings(\"unchecked\")\n")
+              .append("                protected Object invoke(Object delegatee, Object source, Object target,\n")
+              .append("                        ").append(MAPPING_CONTEXT).append(" mappingContext) throws Throwable {\n")
+              .append("                    ");
+            if (returnsTarget) {
+                sb.append("return ");
+            }
+            appendCall(sb, method, providerType, returnsTarget ?
+                    new String[]{"source", "mappingContext"} : new String[]{"source", "target", "mappingContext"});
+            if (!returnsTarget) {
+                sb.append("                    return null;\n");
+            }
+            sb.append("                }\n");
+            String primitiveInvokeName = PRIMITIVE_INVOKE_NAMES.get(method.getReturnType().getKind());
+            if (primitiveInvokeName != null) {
+                sb.append("\n                @Override\n")
+                  .append("                @SuppressWarnings(\"unchecked\")\n")
+                  .append("                protected ").append(method.getReturnType()).append(" ")
+                  .append(primitiveInvokeName).append("(Object delegatee, Object source,\n")
+                  .append("                        ").append(MAPPING_CONTEXT)
+                  .append(" mappingContext) throws Throwable {\n")
+                  .append("                    return ");
+                appendCall(sb, method, providerType, new String[]{"source", "mappingContext"});
+                sb.append("                }\n");
+            }
+            sb.append("            }, ").append(bulk ? "" : returnsTarget + ", ").append(requiresContext).append(",\n")
+              .append("            ").append(stringLiteral(describe(method, binaryName))).append("));\n");
+            if (Boolean.TRUE.equals(getAnnotationValue(method, mappingAnnotation, "cacheable"))) {
+                sb.append("        handcraftMapper.enableResultCaching(KEY_").append(i).append(");\n");
+            }
+        }
+        sb.append("        return result;\n    }\n}\n");
+        return sb.toString();
+    }
+
+    private void appendCall(StringBuilder sb, ExecutableElement method, String providerType, String[] arguments) {
+        if (method.getModifiers().contains(Modifier.STATIC)) {
+            sb.append(providerType);
+        } else {
+            sb.append("((").append(providerType).append(") delegatee)");
+        }
+        sb.append(".").append(method.getSimpleName()).append("(");
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i != 0) {
+                sb.append(", ");
+            }
+            sb.append("(").append(castType(parameters.get(i).asType())).append(") ").append(arguments[i]);
+        }
+        sb.append(");\n");
+    }
+
+    private void writeIndex() {
+        Set<String> mergedIndex = new LinkedHashSet<String>();
+        for (String provider : readIndex()) {
+            // entries of the providers which were (re)compiled or removed since the last compilation are dropped
+            if (!processedProviders.contains(provider) &&
+                    processingEnv.getElementUtils().getTypeElement(provider.replace('$', '.')) != null) {
+                mergedIndex.add(provider);
+            }
+        }
+        mergedIndex.addAll(index);
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    INDEX_LOCATION);
+            Writer writer = new OutputStreamWriter(resource.openOutputStream(), "UTF-8");
+            try {
+                writer.write("# Generated by " + getClass().getName() + ". Do not edit.\n");
+                for (String provider : mergedIndex) {
+                    writer.write(provider);
+                    writer.write('\n');
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write " + INDEX_LOCATION + ": " + e);
+        }
+    }
+
+    /**
+     * @return providers listed in the index left by the previous compilation (if any)
+     */
+    private List<String> readIndex() {
+        List<String> result = new ArrayList<String>();
+        try {
+            FileObject resource = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "",
+                    INDEX_LOCATION);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openInputStream(), "UTF-8"));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        result.add(line);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            // there is no index yet
+        }
+        return result;
+    }
+
+    private String castType(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).
+                    getQualifiedName().toString();
+        }
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    /**
+     * @return description of the method in the format of {@link java.lang.reflect.Method#toString()}
+     */
+    private String describe(ExecutableElement method, String providerBinaryName) {
+        Types typeUtils = processingEnv.getTypeUtils();
+        StringBuilder sb = new StringBuilder();
+        for (Modifier modifier : method.getModifiers()) {
+            sb.append(modifier).append(' ');
+        }
+        sb.append(typeUtils.erasure(method.getReturnType())).append(' ')
+          .append(providerBinaryName).append('.').append(method.getSimpleName()).append('(');
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i != 0) {
+                sb.append(',');
+            }
+            sb.append(typeUtils.erasure(parameters.get(i).asType()));
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * @return value of the annotation attribute (default one if not set explicitly), null if there is no such attribute
+     */
+    private Object getAnnotationValue(Element element, TypeElement annotation, String name) {
+        for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+            if (annotationMirror.getAnnotationType().asElement().equals(annotation)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                        processingEnv.getElementUtils().getElementValuesWithDefaults(annotationMirror).entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals(name)) {
+                        return entry.getValue().getValue();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String stringLiteral(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.processor;
+
+import com.github.shyiko.mappify.api.MappingContext;
+import com.github.shyiko.mappify.handcraft.HandcraftMapper;
+import org.testng.annotations.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class MappingRegistrarProcessorTest {
+
+    @Test
+    public void testGeneratedRegistrarIsUsedByHandcraftMapper() throws Exception {
+        File directory = createTempDirectory();
+        Map<String, String> sources = new LinkedHashMap<String, String>();
+        // stand-in for the mappify-handcraft-spring one (which is matched by name)
+        sources.put("com/github/shyiko/mappify/handcraft/spring/MappingProvider.java",
+            "package com.github.shyiko.mappify.handcraft.spring;\n" +
+            "public @interface MappingProvider {}\n");
+        sources.put("test/Provider.java",
+            "package test;\n" +
+            "import com.github.shyiko.mappify.api.MappingContext;\n" +
+            "import com.github.shyiko.mappify.handcraft.Mapping;\n" +
+            "@com.github.shyiko.mappify.handcraft.spring.MappingProvider\n" +
+            "public class Provider {\n" +
+            "    public static class Source { public int id; }\n" +
+            "    public static class Target { public String name; }\n" +
+            "    @Mapping\n" +
+            "    public void map(Source source, Target target, MappingContext context) {\n" +
+            "        target.name = \"Target #\" + source.id + context.get(\"suffix\", \"\");\n" +
+            "    }\n" +
+            "    @Mapping(value = \"returning\", cacheable = true)\n" +
+            "    static Target map(Source source) {\n" +
+            "        Target target = new Target();\n" +
+            "        target.name = \"Returned #\" + source.id;\n" +
+            "        return target;\n" +
+            "    }\n" +
+            "    @Mapping\n" +
+            "    public long idOf(Source source) {\n" +
+            "        return source.id;\n" +
+            "    }\n" +
+            "    @Mapping(value = \"bulk\", bulk = true)\n" +
+            "    public java.util.List<Target> map(java.util.List<Source> sources) {\n" +
+            "        java.util.List<Target> targets = new java.util.ArrayList<Target>();\n" +
+            "        for (Source source : sources) {\n" +
+            "            targets.add(map(source));\n" +
+            "            targets.get(targets.size() - 1).name += \" of \" + sources.size();\n" +
+            "        }\n" +
+            "        return targets;\n" +
+            "    }\n" +
+            "    public static class UnlistedProvider {\n" +
+            "        @Mapping\n" +
+            "        public void map(Target source, Source target) {\n" +
+            "        }\n" +
+            "    }\n" +
+            "}\n");
+        DiagnosticCollector<JavaFileObject> diagnostics = compile(directory, sources);
+        assertTrue(diagnostics.getDiagnostics().isEmpty(), diagnostics.getDiagnostics().toString());
+        assertTrue(new File(directory, "test/Provider$$MappingRegistrar.class").exists());
+        assertTrue(new File(directory, "test/Provider$UnlistedProvider$$MappingRegistrar.class").exists());
+        // only @MappingProvider-annotated providers are indexed
+        assertEquals(readIndex(directory), Arrays.asList("test.Provider"));
+        ClassLoader classLoader = new URLClassLoader(new URL[]{directory.toURI().toURL()},
+                getClass().getClassLoader());
+        Class<?> providerClass = classLoader.loadClass("test.Provider");
+        Class<?> sourceClass = classLoader.loadClass("test.Provider$Source");
+        Class<?> targetClass = classLoader.loadClass("test.Provider$Target");
+        HandcraftMapper handcraftMapper = new HandcraftMapper();
+        Collection<HandcraftMapper.MappingKey> keys = handcraftMapper.register(providerClass.newInstance());
+        assertEquals(keys.size(), 4);
+        Object source = sourceClass.newInstance();
+        sourceClass.getField("id").set(source, 1);
+        Object target = handcraftMapper.map(source, targetClass, new MappingContext("suffix", "!"));
+        assertEquals(targetClass.getField("name").get(target), "Target #1!");
+        Object returnedTarget = handcraftMapper.map(source, targetClass, "returning");
+        assertEquals(targetClass.getField("name").get(returnedTarget), "Returned #1");
+        assertTrue(handcraftMapper.map(source, targetClass, "returning") == returnedTarget);
+        Object[] bulkTargets = handcraftMapper.map(Arrays.asList(source, source), targetClass, "bulk");
+        assertEquals(targetClass.getField("name").get(bulkTargets[1]), "Returned #1 of 2");
+        assertEquals(handcraftMapper.mapToLongArray(Arrays.asList(source)), new long[]{1});
+    }
+
+    @Test
+    public void testInvalidMappingIsReportedAtCompileTime() throws Exception {
+        DiagnosticCollector<JavaFileObject> diagnostics = compile(createTempDirectory(),
+            "package test;\n" +
+            "import com.github.shyiko.mappify.handcraft.Mapping;\n" +
+            "public class Provider {\n" +
+            "    @Mapping\n" +
+            "    public void map(Object source) {\n" +
+            "    }\n" +
+            "}\n");
+        List<Diagnostic<? extends JavaFileObject>> errors = new ArrayList<Diagnostic<? extends JavaFileObject>>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(diagnostic);
+            }
+        }
+        assertEquals(errors.size(), 1);
+        assertEquals(errors.get(0).getLineNumber(), 5);
+    }
+
+    @Test
+    public void testRegistrarIsNotGeneratedForInaccessibleProvider() throws Exception {
+        File directory = createTempDirectory();
+        DiagnosticCollector<JavaFileObject> diagnostics = compile(directory,
+            "package test;\n" +
+            "import com.github.shyiko.mappify.handcraft.Mapping;\n" +
+            "public class Provider {\n" +
+            "    private static class PrivateProvider {\n" +
+            "        @Mapping\n" +
+            "        public void map(Object source, Object target) {\n" +
+            "        }\n" +
+            "    }\n" +
+            "}\n");
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            assertFalse(diagnostic.getKind() == Diagnostic.Kind.ERROR, diagnostic.toString());
+        }
+        assertFalse(new File(directory, "test/Provider$PrivateProvider$$MappingRegistrar.class").exists());
+    }
+
+    private DiagnosticCollector<JavaFileObject> compile(File directory, String providerSource) throws Exception {
+        return compile(directory, Collections.singletonMap("test/Provider.java", providerSource));
+    }
+
+    /**
+     * @param sources relative path -&gt; source
+     */
+    private DiagnosticCollector<JavaFileObject> compile(File directory, Map<String, String> sources)
+            throws Exception {
+        List<File> sourceFiles = new ArrayList<File>();
+        for (Map.Entry<String, String> entry : sources.entrySet()) {
+            File sourceFile = new File(directory, entry.getKey());
+            assertTrue(sourceFile.getParentFile().isDirectory() || sourceFile.getParentFile().mkdirs());
+            Writer writer = new OutputStreamWriter(new FileOutputStream(sourceFile), "UTF-8");
+            try {
+                writer.write(entry.getValue());
+            } finally {
+                writer.close();
+            }
+            sourceFiles.add(sourceFile);
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+        try {
+            String classPath = location(MappingContext.class) + File.pathSeparator + location(HandcraftMapper.class);
+            List<String> options = Arrays.asList("-classpath", classPath, "-d", directory.getPath(),
+                    "-processorpath", location(MappingRegistrarProcessor.class),
+                    "-processor", MappingRegistrarProcessor.class.getName());
+            compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(sourceFiles)).call();
+        } finally {
+            fileManager.close();
+        }
+        return diagnostics;
+    }
+
+    private List<String> readIndex(File directory) throws IOException {
+        List<String> result = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(new File(directory, MappingRegistrarProcessor.INDEX_LOCATION)), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith("#")) {
+                    result.add(line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return result;
+    }
+
+    private String location(Class<?> type) throws Exception {
+        return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    }
+
+    private File createTempDirectory() throws IOException {
+        File directory = File.createTempFile("mappify-processor", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        directory.deleteOnExit();
+        return directory;
+    }
+}
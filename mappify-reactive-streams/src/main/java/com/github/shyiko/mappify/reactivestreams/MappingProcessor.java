@@ -0,0 +1,337 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.reactivestreams;
+
+import com.github.shyiko.mappify.api.BindingMapper;
+import com.github.shyiko.mappify.api.BoundMapping;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reactive Streams {@link Processor} which maps items (as they arrive) into the objects of target class.
+ * <p/>
+ * Upstream is never asked for more items than were requested by the (single) downstream subscriber.
+ * Items which are already available (e.g. accumulated while previous ones were being mapped) are taken in batches
+ * of up to batchSize elements and handed over to the bulk mapping methods (so that, for example,
+ * {@link com.github.shyiko.mappify.api.MappingContext#getSource()} covers the whole batch). Note that processor
+ * never waits for a batch to fill up. Mapping is resolved (with {@link BindingMapper#bind(Class, Class, String)})
+ * once per run of items of the same class.
+ * <p/>
+ * Unless executor is provided, mapping (and delivery of the results) takes place on the thread which signaled
+ * the item (or the demand).
+ *
+ * @param <S> source type
+ * @param <T> target type
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class MappingProcessor<S, T> implements Processor<S, T> {
+
+    private final BindingMapper mapper;
+    private final Class<T> targetClass;
+    private final String mappingName;
+    private final int batchSize;
+    private final Executor executor;
+
+    private final Queue<S> queue = new ConcurrentLinkedQueue<S>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicReference<Subscription> upstream = new AtomicReference<Subscription>();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private volatile Subscriber<? super T> downstream;
+    private volatile boolean done;
+    private volatile Throwable error;
+    private volatile Throwable illegalRequestError;
+    private volatile boolean cancelled;
+
+    // accessed from within drain loop only
+    private long emitted;
+    private long upstreamRequested;
+    private boolean terminated;
+    private BoundMapping<S, T> boundMapping;
+
+    private final Runnable drainTask = new Runnable() {
+
+        @Override
+        public void run() {
+            drainLoop();
+        }
+    };
+
+    public MappingProcessor(BindingMapper mapper, Class<T> targetClass) {
+        this(mapper, targetClass, null, 1, null);
+    }
+
+    public MappingProcessor(BindingMapper mapper, Class<T> targetClass, String mappingName) {
+        this(mapper, targetClass, mappingName, 1, null);
+    }
+
+    /**
+     * @param mapper mapper
+     * @param targetClass target class
+     * @param mappingName mapping name. nullable (in which case mapper's default one is used)
+     * @param batchSize maximum number of items to map at once
+     * @param executor executor to map items on. nullable
+     */
+    public MappingProcessor(BindingMapper mapper, Class<T> targetClass, String mappingName, int batchSize,
+                            Executor executor) {
+        if (mapper == null) {
+            throw new IllegalArgumentException("Mapper cannot be null");
+        }
+        if (targetClass == null) {
+            throw new IllegalArgumentException("Target class cannot be null");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.mapper = mapper;
+        this.targetClass = targetClass;
+        this.mappingName = mappingName;
+        this.batchSize = batchSize;
+        this.executor = executor;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        if (subscription == null) {
+            throw new NullPointerException("Subscription cannot be null");
+        }
+        if (!upstream.compareAndSet(null, subscription) || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(S item) {
+        if (item == null) {
+            throw new NullPointerException("Item cannot be null");
+        }
+        queue.offer(item);
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        if (throwable == null) {
+            throw new NullPointerException("Throwable cannot be null");
+        }
+        error = throwable;
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber cannot be null");
+        }
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException(getClass().getSimpleName() +
+                    " supports only a single subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new Subscription() {
+
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    illegalRequestError = new IllegalArgumentException(
+                            "Number of requested items must be positive (rule 3.9), got " + n);
+                } else {
+                    long current, updated;
+                    do {
+                        current = requested.get();
+                        updated = current + n;
+                        if (updated < 0) {
+                            updated = Long.MAX_VALUE;
+                        }
+                    } while (!requested.compareAndSet(current, updated));
+                }
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                cancelUpstream();
+                drain();
+            }
+        });
+        if (!cancelled) {
+            downstream = subscriber;
+        }
+        drain();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() == 0) {
+            if (executor == null) {
+                drainLoop();
+            } else {
+                try {
+                    executor.execute(drainTask);
+                } catch (RejectedExecutionException e) {
+                    drainLoop();
+                }
+            }
+        }
+    }
+
+    private void drainLoop() {
+        int missed = 1;
+        do {
+            if (!terminated) {
+                drainOnce();
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drainOnce() {
+        if (cancelled) {
+            queue.clear();
+            downstream = null; // rule 3.13
+            terminated = true;
+            return;
+        }
+        Subscriber<? super T> downstream = this.downstream;
+        if (downstream == null) {
+            return;
+        }
+        Throwable illegalRequestError = this.illegalRequestError;
+        if (illegalRequestError != null) {
+            cancelUpstream();
+            terminate(downstream, illegalRequestError);
+            return;
+        }
+        long demand = requested.get();
+        while (emitted != demand && !queue.isEmpty()) {
+            int numberOfItems = (int) Math.min(batchSize, demand - emitted);
+            List<S> batch = new ArrayList<S>(numberOfItems);
+            S item;
+            while (batch.size() < numberOfItems && (item = queue.poll()) != null) {
+                batch.add(item);
+            }
+            List<T> result;
+            try {
+                result = map(batch);
+            } catch (Throwable e) {
+                cancelUpstream();
+                terminate(downstream, e);
+                return;
+            }
+            for (T mappedItem : result) {
+                if (mappedItem == null) {
+                    cancelUpstream();
+                    terminate(downstream, new NullPointerException("Item was mapped to null"));
+                    return;
+                }
+                downstream.onNext(mappedItem);
+                emitted++;
+                if (cancelled) {
+                    queue.clear();
+                    this.downstream = null;
+                    terminated = true;
+                    return;
+                }
+            }
+            demand = requested.get();
+        }
+        boolean done = this.done;
+        if (done && queue.isEmpty()) {
+            terminate(downstream, error);
+            return;
+        }
+        Subscription subscription = upstream.get();
+        if (subscription != null && !done && upstreamRequested != demand) {
+            long n = demand - upstreamRequested;
+            upstreamRequested = demand;
+            subscription.request(n);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> map(List<S> batch) {
+        int batchSize = batch.size();
+        List<T> result = new ArrayList<T>(batchSize);
+        for (int from = 0, to; from < batchSize; from = to) {
+            Class<?> sourceClass = batch.get(from).getClass();
+            to = from + 1;
+            while (to < batchSize && batch.get(to).getClass() == sourceClass) {
+                to++;
+            }
+            BoundMapping<S, T> mapping = boundMapping;
+            if (mapping == null || mapping.getSourceClass() != sourceClass) {
+                boundMapping = mapping = mappingName == null ?
+                        mapper.bind((Class<S>) sourceClass, targetClass) :
+                        mapper.bind((Class<S>) sourceClass, targetClass, mappingName);
+            }
+            if (to - from == 1) {
+                result.add(mapping.map(batch.get(from)));
+            } else {
+                mapping.map(batch.subList(from, to), result);
+            }
+        }
+        return result;
+    }
+
+    private void cancelUpstream() {
+        Subscription subscription = upstream.get();
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private void terminate(Subscriber<? super T> downstream, Throwable throwable) {
+        terminated = true;
+        queue.clear();
+        this.downstream = null;
+        if (throwable == null) {
+            downstream.onComplete();
+        } else {
+            downstream.onError(throwable);
+        }
+    }
+}
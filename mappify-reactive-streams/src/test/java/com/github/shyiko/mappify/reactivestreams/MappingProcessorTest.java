@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.reactivestreams;
+
+import com.github.shyiko.mappify.api.MappingContext;
+import com.github.shyiko.mappify.handcraft.HandcraftMapper;
+import com.github.shyiko.mappify.handcraft.Mapping;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class MappingProcessorTest {
+
+    @Test
+    public void testUpstreamDemandFollowsDownstreamDemand() throws Exception {
+        HandcraftMapper mapper = new HandcraftMapper();
+        mapper.register(new BatchRecordingMappingProvider());
+        MappingProcessor<Integer, String> processor =
+                new MappingProcessor<Integer, String>(mapper, String.class, null, 3, null);
+        RecordingSubscription upstream = new RecordingSubscription();
+        processor.onSubscribe(upstream);
+        RecordingSubscriber<String> downstream = new RecordingSubscriber<String>();
+        processor.subscribe(downstream);
+        assertEquals(upstream.requested, 0);
+        downstream.subscription.request(5);
+        assertEquals(upstream.requested, 5);
+        downstream.subscription.request(2);
+        assertEquals(upstream.requested, 7);
+        downstream.subscription.request(Long.MAX_VALUE);
+        downstream.subscription.cancel();
+        assertTrue(upstream.cancelled);
+    }
+
+    @Test
+    public void testItemsAccumulatedWhileThereIsNoDemandAreMappedInBatches() throws Exception {
+        HandcraftMapper mapper = new HandcraftMapper();
+        BatchRecordingMappingProvider mappingProvider = new BatchRecordingMappingProvider();
+        mapper.register(mappingProvider);
+        MappingProcessor<Integer, String> processor =
+                new MappingProcessor<Integer, String>(mapper, String.class, null, 3, null);
+        RecordingSubscription upstream = new RecordingSubscription();
+        processor.onSubscribe(upstream);
+        for (int i = 1; i <= 5; i++) {
+            processor.onNext(i);
+        }
+        processor.onComplete();
+        RecordingSubscriber<String> downstream = new RecordingSubscriber<String>();
+        processor.subscribe(downstream);
+        assertTrue(downstream.items.isEmpty());
+        downstream.subscription.request(4);
+        assertEquals(downstream.items, Arrays.asList("#1", "#2", "#3", "#4"));
+        assertEquals(mappingProvider.batchSizes, Arrays.asList(3, 3, 3, 1));
+        assertTrue(!downstream.completed);
+        downstream.subscription.request(1);
+        assertEquals(downstream.items, Arrays.asList("#1", "#2", "#3", "#4", "#5"));
+        assertTrue(downstream.completed);
+        assertNull(downstream.error);
+    }
+
+    @Test
+    public void testFailureOfTheMappingCancelsUpstream() throws Exception {
+        HandcraftMapper mapper = new HandcraftMapper();
+        MappingProcessor<Integer, String> processor =
+                new MappingProcessor<Integer, String>(mapper, String.class);
+        RecordingSubscription upstream = new RecordingSubscription();
+        processor.onSubscribe(upstream);
+        RecordingSubscriber<String> downstream = new RecordingSubscriber<String>();
+        processor.subscribe(downstream);
+        downstream.subscription.request(1);
+        processor.onNext(1);
+        assertTrue(upstream.cancelled);
+        assertTrue(downstream.error != null);
+        assertTrue(downstream.items.isEmpty());
+    }
+
+    @Test
+    public void testSecondSubscriberIsRejected() throws Exception {
+        MappingProcessor<Integer, String> processor =
+                new MappingProcessor<Integer, String>(new HandcraftMapper(), String.class);
+        processor.subscribe(new RecordingSubscriber<String>());
+        RecordingSubscriber<String> subscriber = new RecordingSubscriber<String>();
+        processor.subscribe(subscriber);
+        assertTrue(subscriber.error instanceof IllegalStateException);
+    }
+
+    public static class BatchRecordingMappingProvider {
+
+        private final List<Integer> batchSizes = new ArrayList<Integer>();
+
+        @Mapping
+        public String map(Integer source, MappingContext context) {
+            Object batch = context.getSource();
+            batchSizes.add(batch instanceof List ? ((List) batch).size() : 1);
+            return "#" + source;
+        }
+    }
+
+    private static class RecordingSubscription implements Subscription {
+
+        private long requested;
+        private boolean cancelled;
+
+        @Override
+        public void request(long n) {
+            requested += n;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private static class RecordingSubscriber<T> implements Subscriber<T> {
+
+        private Subscription subscription;
+        private final List<T> items = new ArrayList<T>();
+        private boolean completed;
+        private Throwable error;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 Stanley Shyiko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shyiko.mappify.reactivestreams;
+
+import com.github.shyiko.mappify.handcraft.HandcraftMapper;
+import com.github.shyiko.mappify.handcraft.Mapping;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.reactivestreams.tck.IdentityProcessorVerification;
+import org.reactivestreams.tck.TestEnvironment;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reactive Streams TCK run against {@link MappingProcessor} (configured with identity mapping).
+ *
+ * @author <a href="mailto:stanley.shyiko@gmail.com">Stanley Shyiko</a>
+ */
+public class MappingProcessorVerificationTest extends IdentityProcessorVerification<Integer> {
+
+    private ExecutorService executorService;
+
+    public MappingProcessorVerificationTest() {
+        super(new TestEnvironment(500));
+    }
+
+    @BeforeClass
+    public void startExecutor() {
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @AfterClass
+    public void stopExecutor() {
+        executorService.shutdown();
+    }
+
+    @Override
+    public Processor<Integer, Integer> createIdentityProcessor(int bufferSize) {
+        HandcraftMapper mapper = new HandcraftMapper();
+        mapper.register(new IdentityMappingProvider());
+        return new MappingProcessor<Integer, Integer>(mapper, Integer.class, null, bufferSize, null);
+    }
+
+    @Override
+    public Publisher<Integer> createFailedPublisher() {
+        return new Publisher<Integer>() {
+
+            @Override
+            public void subscribe(Subscriber<? super Integer> subscriber) {
+                subscriber.onSubscribe(new Subscription() {
+
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new RuntimeException("Publisher failed"));
+            }
+        };
+    }
+
+    @Override
+    public ExecutorService publisherExecutorService() {
+        return executorService;
+    }
+
+    @Override
+    public long maxSupportedSubscribers() {
+        return 1;
+    }
+
+    @Override
+    public Integer createElement(int element) {
+        return element;
+    }
+
+    public static class IdentityMappingProvider {
+
+        @Mapping
+        public Integer map(Integer source) {
+            return source;
+        }
+    }
+}